@@ -0,0 +1,117 @@
+package com.github.bench.echo;
+
+import com.github.Controller.ApiAccessController;
+import com.github.accesslog.AccessLogDispatcher;
+import com.github.accesslog.AccessLogPolicyRegistry;
+import com.github.accesslog.EndpointLatencyRecorder;
+import com.github.bean.UserVO;
+import com.github.filter.ApiAccessLogFilter;
+import com.github.filter.StaticResourceMatcher;
+import com.github.interceptor.ApiAccessLogInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.FilterChain;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiAccessLogFilter 在每个请求上的开销(ns)，不包括 Handler 本身
+ * 过滤器链的末端只调用 ApiAccessLogInterceptor.preHandle（模拟 DispatcherServlet 匹配到 Handler），
+ * 访问日志进入异步管道后由后台线程丢弃（没有配置 sink），测的只是请求线程上的部分（包括记录耗时分布，不捕获响应体）。
+ * <ul>
+ *     <li>api：匹配到 Handler 的接口请求，需要解析日志策略、组装访问日志</li>
+ *     <li>static：静态资源请求，只做静态资源判断后直接放行</li>
+ * </ul>
+ * 构造 Mock 请求本身的开销见 baseline，过滤器的实际开销为 doFilter - baseline。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessLogFilterBenchmark {
+
+    @Param({"api", "static"})
+    public String requestType;
+
+    private AccessLogDispatcher dispatcher;
+    private ApiAccessLogFilter filter;
+    private FilterChain chain;
+    private String uri;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dispatcher = new AccessLogDispatcher(1 << 16, 1024, AccessLogDispatcher.OverflowPolicy.DROP_NEWEST, 0,
+                Collections.emptyList());
+        dispatcher.start();
+        filter = new ApiAccessLogFilter(dispatcher, staticResourceMatcher(), new EndpointLatencyRecorder(60000, 2), null);
+
+        HandlerMethod handlerMethod = new HandlerMethod(new ApiAccessController(),
+                ApiAccessController.class.getMethod("test", UserVO.class));
+        AccessLogPolicyRegistry registry = new AccessLogPolicyRegistry(
+                new StaticListableBeanFactory().getBeanProvider(RequestMappingHandlerMapping.class));
+        registry.register(Collections.singletonList(handlerMethod));
+        ApiAccessLogInterceptor interceptor = new ApiAccessLogInterceptor(registry);
+        chain = (request, response) -> interceptor.preHandle((MockHttpServletRequest) request,
+                (MockHttpServletResponse) response, handlerMethod);
+        uri = "api".equals(requestType) ? "/api-access-test/api/test" : "/assets/app.woff2";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /**
+     * 只构造请求和响应，不经过过滤器
+     */
+    @Benchmark
+    public MockHttpServletResponse baseline() {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setContentLength(request.getContentLength());
+        return response;
+    }
+
+    /**
+     * 与 application.yml 中 access-log.static.* 的默认值相同
+     */
+    static StaticResourceMatcher staticResourceMatcher() {
+        return new StaticResourceMatcher(
+                Arrays.asList("/css/", "/js/", "/images/", "/static/", "/assets/"),
+                Arrays.asList(".css", ".js", ".png", ".jpg", ".jpeg", ".gif", ".svg", ".ico", ".woff", ".woff2", ".ttf", ".eot", ".map"));
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setParameter("id", "42");
+        return request;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.bench.echo;
+
+import com.github.Controller.ApiAccessController;
+import com.github.accesslog.AccessLogPolicy;
+import com.github.accesslog.AccessLogPolicyRegistry;
+import com.github.annotation.ApiAccessLog;
+import com.github.bean.UserVO;
+import com.github.filter.StaticResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiAccessLogFilter 每个请求上的两个判断，原来的实现（legacy*，保留在这里作为对照）与预先编译的实现对比：
+ * <ul>
+ *     <li>静态资源判断：18 次 endsWith / startsWith 与前缀、后缀字典树</li>
+ *     <li>日志策略：每次读取 @ApiAccessLog 注解并拼接类名、方法名，与启动时解析好的策略表</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessLogPolicyBenchmark {
+
+    @Param({"/api-access-test/api/test", "/js/stomp.min.js", "/assets/font/app.woff2"})
+    public String uri; // 接口请求需要走完所有规则，是原来实现的最坏情况
+
+    private StaticResourceMatcher matcher;
+    private AccessLogPolicyRegistry registry;
+    private HandlerMethod handlerMethod;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        matcher = AccessLogFilterBenchmark.staticResourceMatcher();
+        HandlerMethod registered = new HandlerMethod(new ApiAccessController(),
+                ApiAccessController.class.getMethod("test", UserVO.class));
+        registry = new AccessLogPolicyRegistry(
+                new StaticListableBeanFactory().getBeanProvider(RequestMappingHandlerMapping.class));
+        registry.register(Collections.singletonList(registered));
+        // 每个请求拿到的是解析 Bean 后重新创建的 HandlerMethod，Method 对象相同
+        handlerMethod = new HandlerMethod(registered.getBean(), registered.getMethod());
+    }
+
+    @Benchmark
+    public boolean legacyStaticCheck() {
+        return legacyIsStaticResource(uri);
+    }
+
+    @Benchmark
+    public boolean trieStaticCheck() {
+        return matcher.matches(uri);
+    }
+
+    @Benchmark
+    public void legacyPolicy(Blackhole blackhole) {
+        ApiAccessLog annotation = handlerMethod.getMethodAnnotation(ApiAccessLog.class);
+        blackhole.consume(annotation == null || annotation.enable());
+        blackhole.consume(handlerMethod.getBean().getClass().getName() + "#" + handlerMethod.getMethod().getName());
+    }
+
+    @Benchmark
+    public void tablePolicy(Blackhole blackhole) {
+        AccessLogPolicy policy = registry.policy(handlerMethod);
+        blackhole.consume(policy.enabled());
+        blackhole.consume(policy.handlerName());
+    }
+
+    /**
+     * 原来 ApiAccessLogFilter.isStaticResource 的实现
+     */
+    private static boolean legacyIsStaticResource(String uri) {
+        return uri.endsWith(".css") ||
+               uri.endsWith(".js") ||
+               uri.endsWith(".png") ||
+               uri.endsWith(".jpg") ||
+               uri.endsWith(".jpeg") ||
+               uri.endsWith(".gif") ||
+               uri.endsWith(".svg") ||
+               uri.endsWith(".ico") ||
+               uri.endsWith(".woff") ||
+               uri.endsWith(".woff2") ||
+               uri.endsWith(".ttf") ||
+               uri.endsWith(".eot") ||
+               uri.endsWith(".map") ||
+               uri.startsWith("/css/") ||
+               uri.startsWith("/js/") ||
+               uri.startsWith("/images/") ||
+               uri.startsWith("/static/") ||
+               uri.startsWith("/assets/");
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.bench.echo;
+
+import cn.hutool.extra.servlet.ServletUtil;
+import com.github.wrapper.BodyBufferPool;
+import com.github.wrapper.TeeRequestBodyWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求体捕获的耗时和内存分配：原来的整体缓冲（CacheRequestBodyWrapper 读入 byte[]，ApiAccessLogFilter 再转成 String）
+ * 与旁路捕获（TeeRequestBodyWrapper，只复制前 maxCapture 个字节到池化缓冲区）对比。
+ * 每次调用都模拟 Handler 用 8KB 的缓冲区把请求体读完；内存分配需要加上 GC profiler 查看 gc.alloc.rate.norm（每次调用分配的字节数）：
+ * java -jar benchmarks-echo/target/benchmarks-echo.jar RequestBodyCaptureBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBodyCaptureBenchmark {
+
+    private static final int MAX_CAPTURE = 4096;
+
+    @Param({"1024", "1048576", "16777216"})
+    public int bodySize; // 请求体字节数：1KB、1MB、16MB
+
+    private byte[] content;
+    private BodyBufferPool bufferPool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        content = new byte[bodySize];
+        Arrays.fill(content, (byte) 'a');
+        bufferPool = new BodyBufferPool(MAX_CAPTURE, 16);
+    }
+
+    /**
+     * 原来的做法：构造包装器时读出整个请求体，访问日志再转成一个完整的 String
+     */
+    @Benchmark
+    public void fullBuffering(Blackhole blackhole) throws IOException {
+        MockHttpServletRequest request = request();
+        byte[] body = ServletUtil.getBodyBytes(request);
+        String requestBody = new String(body, StandardCharsets.UTF_8);
+        blackhole.consume(consume(new ByteArrayInputStream(body)));
+        blackhole.consume(requestBody);
+    }
+
+    /**
+     * 旁路捕获：请求体以流的形式交给 Handler，只复制前 maxCapture 个字节
+     */
+    @Benchmark
+    public void teeCapture(Blackhole blackhole) throws IOException {
+        TeeRequestBodyWrapper wrapper = new TeeRequestBodyWrapper(request(), bufferPool);
+        blackhole.consume(consume(wrapper.getInputStream()));
+        blackhole.consume(wrapper.capturedBody());
+        wrapper.release();
+    }
+
+    /**
+     * 接口关闭了访问日志（@ApiAccessLog(enable = false)），不借出缓冲区，也不生成 String
+     */
+    @Benchmark
+    public void teeDisabled(Blackhole blackhole) throws IOException {
+        TeeRequestBodyWrapper wrapper = new TeeRequestBodyWrapper(request(), bufferPool);
+        wrapper.disableCapture();
+        blackhole.consume(consume(wrapper.getInputStream()));
+        wrapper.release();
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api-access-test/api/test");
+        request.setContentType("application/json");
+        request.setContent(content); // 不复制，所有调用共享同一份原始数据
+        return request;
+    }
+
+    /**
+     * 模拟 Handler 读取请求体
+     */
+    private static long consume(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            total += n;
+        }
+        return total;
+    }
+}
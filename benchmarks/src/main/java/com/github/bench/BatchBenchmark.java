@@ -0,0 +1,88 @@
+package com.github.bench;
+
+import com.github.cache.RedisClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量读写：逐个 key 往返 vs MGET / pipeline
+ * 每次调用处理 batchSize 个 key，对比单次调用的平均耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final long EXPIRE_SECONDS = 600L;
+
+    @Param({"1", "10", "100", "1000"})
+    public int batchSize;
+
+    private RedisClient redisClient;
+    private List<String> keys;
+    private Map<String, String> kvs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        redisClient = BenchmarkContext.acquire().getBean(RedisClient.class);
+        keys = new ArrayList<>(batchSize);
+        kvs = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            String key = "bench_batch_" + i;
+            keys.add(key);
+            kvs.put(key, "value_" + i);
+        }
+        redisClient.multiSetWithExpire(kvs, EXPIRE_SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redisClient.multiDel(keys);
+        BenchmarkContext.release();
+    }
+
+    @Benchmark
+    public void getOneByOne(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(redisClient.stringGet(key));
+        }
+    }
+
+    @Benchmark
+    public List<String> multiGet() {
+        return redisClient.multiGet(keys);
+    }
+
+    @Benchmark
+    public void setOneByOne() {
+        for (Map.Entry<String, String> kv : kvs.entrySet()) {
+            redisClient.stringSetWithExpire(kv.getKey(), kv.getValue(), EXPIRE_SECONDS);
+        }
+    }
+
+    @Benchmark
+    public void multiSetWithExpire() {
+        redisClient.multiSetWithExpire(kvs, EXPIRE_SECONDS);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.bench;
+
+import com.github.RedisApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试共用的运行环境
+ * 启动 distributed-lock 的完整 Spring 上下文，使用和线上相同的 RedisClient、RedisLuaUtil、Redisson 等 Bean。
+ * Redis 通过系统属性指定：
+ * <ul>
+ *     <li>bench.redis.embedded：默认 true，在 bench.redis.port 上启动内嵌的 redis-server（不落盘），结束时关闭</li>
+ *     <li>bench.redis.host / bench.redis.port：embedded=false 时连接已有的 Redis，默认 localhost:16379</li>
+ *     <li>bench.hotkey：默认 false，关闭热点 key 的本地副本，否则 CacheHitBenchmark 等反复读同一个 key 的测试测的是本地缓存；
+ *     设为 true 可以对比热点 key 走本地副本后的效果</li>
+ *     <li>bench.redis.cluster：集群节点列表（host:port,host:port），设置后以 cluster profile 连接该集群，不再启动内嵌 redis-server</li>
+ * </ul>
+ * JMH 每个 fork 是独立的 JVM，所以这里用静态变量保存上下文即可。
+ */
+@Slf4j
+public final class BenchmarkContext {
+
+    private static final String HOST = System.getProperty("bench.redis.host", "localhost");
+    private static final int PORT = Integer.getInteger("bench.redis.port", 16379);
+    private static final String CLUSTER_NODES = System.getProperty("bench.redis.cluster", "");
+    private static final boolean EMBEDDED = CLUSTER_NODES.isEmpty()
+            && Boolean.parseBoolean(System.getProperty("bench.redis.embedded", "true"));
+
+    private static ConfigurableApplicationContext context;
+    private static RedisServer redisServer;
+    private static int references;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * 获取（必要时启动）上下文，与 {@link #release()} 成对调用
+     */
+    public static synchronized ConfigurableApplicationContext acquire() {
+        if (context == null) {
+            if (EMBEDDED) {
+                redisServer = startRedisServer();
+            }
+            // 以命令行参数的形式传入，优先级高于 application.yml
+            List<String> args = new ArrayList<>(Arrays.asList(
+                    "--server.port=0",
+                    // 业务代码每次加锁、续约都会打 info 日志，压测时关掉，避免测的是日志
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.github=ERROR",
+                    "--cache.hotkey.enabled=" + Boolean.getBoolean("bench.hotkey")));
+            if (CLUSTER_NODES.isEmpty()) {
+                args.add("--spring.redis.host=" + (EMBEDDED ? "localhost" : HOST));
+                args.add("--spring.redis.port=" + PORT);
+            } else {
+                args.add("--spring.profiles.active=cluster");
+                args.add("--spring.redis.cluster.nodes=" + CLUSTER_NODES);
+            }
+            context = new SpringApplicationBuilder(RedisApplication.class).run(args.toArray(new String[0]));
+        }
+        references++;
+        return context;
+    }
+
+    public static synchronized void release() {
+        if (--references > 0) {
+            return;
+        }
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+        if (redisServer != null) {
+            try {
+                redisServer.stop();
+            } catch (IOException e) {
+                log.warn("关闭内嵌 redis-server 失败", e);
+            }
+            redisServer = null;
+        }
+    }
+
+    private static RedisServer startRedisServer() {
+        try {
+            RedisServer server = RedisServer.newRedisServer()
+                    .port(PORT)
+                    .setting("bind 127.0.0.1")
+                    .setting("save \"\"")
+                    .setting("appendonly no")
+                    .build();
+            server.start();
+            log.warn("已启动内嵌 redis-server，端口 {}", PORT);
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException("启动内嵌 redis-server 失败，可以用 -Dbench.redis.embedded=false 连接已有的 Redis", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.bench;
+
+import com.github.cache.NearCache;
+import com.github.cache.RedisClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存命中时的读取延迟（SampleTime 模式，输出 p50/p99 等分位数）
+ * 分别对应 ArticleController 和 ArticleController2 命中缓存时走的读路径。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CacheHitBenchmark {
+
+    private static final String KEY = "bench_article_hit";
+    private static final String VALUE = "{\"value\":\"文章内容\",\"expireAt\":" + Long.MAX_VALUE + "}";
+
+    private RedisClient redisClient;
+    private NearCache nearCache;
+    private RBucket<String> bucket;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        redisClient = context.getBean(RedisClient.class);
+        nearCache = context.getBean(NearCache.class);
+        bucket = context.getBean(RedissonClient.class).getBucket(KEY + "_redisson");
+
+        redisClient.stringSet(KEY, VALUE);
+        bucket.set(VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redisClient.del(KEY);
+        bucket.delete();
+        BenchmarkContext.release();
+    }
+
+    /**
+     * 直接读 Redis（RedisClient 读路径，没有本地缓存）
+     */
+    @Benchmark
+    public String redisClient() {
+        return redisClient.stringGet(KEY);
+    }
+
+    /**
+     * ArticleController 的读路径：本地缓存 + RedisClient
+     */
+    @Benchmark
+    public String redisClientNearCache() {
+        return redisClient.stringGetWithNearCache(KEY);
+    }
+
+    /**
+     * 直接读 Redis（Redisson RBucket，没有本地缓存）
+     */
+    @Benchmark
+    public String redisson() {
+        return bucket.get();
+    }
+
+    /**
+     * ArticleController2 的读路径：本地缓存 + Redisson RBucket
+     */
+    @Benchmark
+    public String redissonNearCache() {
+        return nearCache.get(bucket.getName(), k -> bucket.get());
+    }
+}
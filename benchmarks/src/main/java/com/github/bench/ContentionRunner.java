@@ -0,0 +1,45 @@
+package com.github.bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按线程数 1、2、4 ... 64 依次运行 {@link LockBenchmark}，输出竞争程度和吞吐量的关系
+ * 线程数可以通过 -Dbench.threads=1,8,64 修改，其余参数和 JMH 命令行一致，例如：
+ * java -Dbench.redis.embedded=true -cp target/benchmarks.jar com.github.bench.ContentionRunner -p keyMode=shared
+ */
+public class ContentionRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : System.getProperty("bench.threads", "1,2,4,8,16,32,64").split(",")) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .include(LockBenchmark.class.getSimpleName())
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build();
+            Collection<RunResult> run = new Runner(options).run();
+            results.addAll(run);
+        }
+
+        System.out.println();
+        System.out.printf("%-40s %-12s %8s %16s%n", "Benchmark", "keyMode", "Threads", "Score(ops/s)");
+        for (RunResult result : results) {
+            System.out.printf("%-40s %-12s %8d %16.2f%n",
+                    result.getParams().getBenchmark(),
+                    result.getParams().getParam("keyMode"),
+                    result.getParams().getThreads(),
+                    result.getPrimaryResult().getScore());
+        }
+    }
+}
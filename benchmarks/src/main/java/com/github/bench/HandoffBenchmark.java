@@ -0,0 +1,88 @@
+package com.github.bench;
+
+import com.github.cache.ClusterKeys;
+import com.github.cache.LockReleaseNotifier;
+import com.github.cache.RedisLuaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁交接延迟：持有者释放锁之后，等待者多久能拿到锁
+ * 每次调用先由后台线程持有锁 holdMillis 毫秒后释放，当前线程按 ArticleController 的重试逻辑等待，
+ * notify 模式等待释放通知，poll 模式固定 sleep。结果减去 holdMillis 即为交接延迟。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HandoffBenchmark {
+
+    private static final String LOCK_KEY = "bench_handoff_" + ClusterKeys.hashTag("bench", "handoff"); // 锁和 fence 计数器在同一个槽位
+    private static final String FENCE_KEY = LOCK_KEY + "_fence";
+    private static final long LEASE_MILLIS = 30_000L;
+
+    @Param({"notify", "poll"})
+    public String mode;
+
+    @Param({"20"})
+    public long holdMillis;
+
+    @Param({"200"})
+    public long sleepTime; // 与 cache.lock.sleepTime 一致
+
+    private RedisLuaUtil redisLuaUtil;
+    private LockReleaseNotifier lockReleaseNotifier;
+
+    private final ScheduledExecutorService holder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "bench-holder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        redisLuaUtil = context.getBean(RedisLuaUtil.class);
+        lockReleaseNotifier = context.getBean(LockReleaseNotifier.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        holder.shutdownNow();
+        BenchmarkContext.release();
+    }
+
+    @Benchmark
+    public Long handoff() throws InterruptedException {
+        Long held = redisLuaUtil.tryLockWithFence(LOCK_KEY, FENCE_KEY, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+        holder.schedule(() -> redisLuaUtil.cad(LOCK_KEY, String.valueOf(held)), holdMillis, TimeUnit.MILLISECONDS);
+
+        Long token;
+        while ((token = redisLuaUtil.tryLockWithFence(LOCK_KEY, FENCE_KEY, LEASE_MILLIS, TimeUnit.MILLISECONDS)) == 0) {
+            if ("notify".equals(mode)) {
+                lockReleaseNotifier.await(LOCK_KEY, sleepTime);
+            } else {
+                Thread.sleep(sleepTime);
+            }
+        }
+        return redisLuaUtil.cad(LOCK_KEY, String.valueOf(token));
+    }
+}
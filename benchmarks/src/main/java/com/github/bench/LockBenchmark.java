@@ -0,0 +1,93 @@
+package com.github.bench;
+
+import com.github.cache.ClusterKeys;
+import com.github.cache.LockReleaseNotifier;
+import com.github.cache.RedisLuaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加锁 + 释放锁的吞吐量
+ * luaFence 对应 ArticleController 的方案（fencing token 加锁脚本 + CAD 释放 + 释放通知），
+ * redisson 对应 ArticleController2 的方案（RLock，看门狗续期）。
+ * keyMode=shared 时所有线程竞争同一把锁，perThread 时每个线程一把锁，只测 Redis 往返开销；
+ * 竞争程度随线程数的变化用 {@link ContentionRunner} 按 1~64 线程依次运行。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LockBenchmark {
+
+    private static final long LEASE_MILLIS = 30_000L;
+    private static final long NOTIFY_TIMEOUT_MILLIS = 200L; // 与 cache.lock.sleepTime 保持一致
+
+    @Param({"shared", "perThread"})
+    public String keyMode;
+
+    private RedisLuaUtil redisLuaUtil;
+    private LockReleaseNotifier lockReleaseNotifier;
+    private RedissonClient redissonClient;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        redisLuaUtil = context.getBean(RedisLuaUtil.class);
+        lockReleaseNotifier = context.getBean(LockReleaseNotifier.class);
+        redissonClient = context.getBean(RedissonClient.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.release();
+    }
+
+    @State(Scope.Thread)
+    public static class LockKey {
+        String lockKey;
+        String fenceKey;
+        RLock rLock;
+
+        @Setup(Level.Trial)
+        public void setup(LockBenchmark benchmark, ThreadParams threadParams) {
+            String suffix = "shared".equals(benchmark.keyMode) ? "shared" : String.valueOf(threadParams.getThreadIndex());
+            lockKey = "bench_lock_" + ClusterKeys.hashTag("bench", suffix); // 锁和 fence 计数器在同一个槽位
+            fenceKey = lockKey + "_fence";
+            rLock = benchmark.redissonClient.getLock("bench_rlock_" + suffix);
+        }
+    }
+
+    @Benchmark
+    public long luaFence(LockKey key) throws InterruptedException {
+        Long token;
+        while ((token = redisLuaUtil.tryLockWithFence(key.lockKey, key.fenceKey, LEASE_MILLIS, TimeUnit.MILLISECONDS)) == 0) {
+            lockReleaseNotifier.await(key.lockKey, NOTIFY_TIMEOUT_MILLIS);
+        }
+        return redisLuaUtil.cad(key.lockKey, String.valueOf(token));
+    }
+
+    @Benchmark
+    public void redisson(LockKey key) {
+        key.rLock.lock();
+        key.rLock.unlock();
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.bench;
+
+import com.github.cache.RedisReadWriteLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.redisson.api.RReadWriteLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读写锁吞吐量：RedisReadWriteLock（Lua）vs Redisson RReadWriteLock
+ * 每组 7 个读线程 + 1 个写线程操作同一把锁，分别输出读、写两侧的吞吐量；
+ * 写线程的吞吐量可以看出读锁持续被持有时写锁的饥饿程度。
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadWriteLockBenchmark {
+
+    private static final String LUA_KEY = "bench_rwlock";
+    private static final String REDISSON_KEY = "bench_rrwlock";
+    private static final long LEASE_MILLIS = 30_000L;
+    private static final long WAIT_MILLIS = 10_000L;
+
+    private RedisReadWriteLock redisReadWriteLock;
+    private RReadWriteLock rReadWriteLock;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        redisReadWriteLock = context.getBean(RedisReadWriteLock.class);
+        rReadWriteLock = context.getBean(RedissonClient.class).getReadWriteLock(REDISSON_KEY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.release();
+    }
+
+    @State(Scope.Thread)
+    public static class Holder {
+        String id;
+
+        @Setup(Level.Trial)
+        public void setup(ThreadParams threadParams) {
+            id = UUID.randomUUID() + ":" + threadParams.getThreadIndex();
+        }
+    }
+
+    @Benchmark
+    @Group("lua")
+    @GroupThreads(7)
+    public boolean luaRead(Holder holder) throws InterruptedException {
+        return redisReadWriteLock.readLock(LUA_KEY, holder.id, LEASE_MILLIS, WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                && redisReadWriteLock.unlock(LUA_KEY, holder.id);
+    }
+
+    @Benchmark
+    @Group("lua")
+    @GroupThreads(1)
+    public boolean luaWrite(Holder holder) throws InterruptedException {
+        return redisReadWriteLock.writeLock(LUA_KEY, holder.id, LEASE_MILLIS, WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                && redisReadWriteLock.unlock(LUA_KEY, holder.id);
+    }
+
+    @Benchmark
+    @Group("redisson")
+    @GroupThreads(7)
+    public void redissonRead() {
+        rReadWriteLock.readLock().lock();
+        rReadWriteLock.readLock().unlock();
+    }
+
+    @Benchmark
+    @Group("redisson")
+    @GroupThreads(1)
+    public void redissonWrite() {
+        rReadWriteLock.writeLock().lock();
+        rReadWriteLock.writeLock().unlock();
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.redisson.Redisson;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redisson 默认配置 vs RedissonConfig 调优后的配置（application.yml 中的 redisson.*）
+ * 默认配置使用 MarshallingCodec 和 Redisson 自带的连接池、线程数；tuned 直接使用 Spring 容器中的 RedissonClient。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class RedissonConfigBenchmark {
+
+    private static final String VALUE = "{\"value\":\"文章内容\",\"expireAt\":" + Long.MAX_VALUE + "}";
+
+    @Param({"default", "tuned"})
+    public String config;
+
+    private RedissonClient redissonClient;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        if ("tuned".equals(config)) {
+            redissonClient = context.getBean(RedissonClient.class);
+        } else {
+            Environment environment = context.getEnvironment();
+            Config defaults = new Config();
+            defaults.useSingleServer().setAddress(String.format("redis://%s:%s",
+                    environment.getProperty("spring.redis.host"), environment.getProperty("spring.redis.port")));
+            redissonClient = Redisson.create(defaults);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!"tuned".equals(config)) {
+            redissonClient.shutdown();
+        }
+        BenchmarkContext.release();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        RBucket<String> bucket;
+        RLock lock;
+
+        @Setup(Level.Trial)
+        public void setup(RedissonConfigBenchmark benchmark, ThreadParams threadParams) {
+            String suffix = benchmark.config + "_" + threadParams.getThreadIndex();
+            bucket = benchmark.redissonClient.getBucket("bench_redisson_bucket_" + suffix);
+            bucket.set(VALUE);
+            lock = benchmark.redissonClient.getLock("bench_redisson_lock_" + suffix);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            bucket.delete();
+        }
+    }
+
+    @Benchmark
+    public String bucketGet(ThreadKeys keys) {
+        return keys.bucket.get();
+    }
+
+    @Benchmark
+    public void bucketSet(ThreadKeys keys) {
+        keys.bucket.set(VALUE);
+    }
+
+    @Benchmark
+    public void lockUnlock(ThreadKeys keys) {
+        keys.lock.lock();
+        keys.lock.unlock();
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.bench;
+
+import com.github.cache.RedisSemaphore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.redisson.api.RSemaphore;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 信号量获取 + 释放的吞吐量：RedisSemaphore（Lua）vs Redisson RSemaphore
+ * 16 个线程竞争 permits 个许可。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class SemaphoreBenchmark {
+
+    private static final String LUA_KEY = "bench_semaphore";
+    private static final String REDISSON_KEY = "bench_rsemaphore";
+    private static final long LEASE_MILLIS = 30_000L;
+    private static final long WAIT_MILLIS = 10_000L;
+
+    @Param({"1", "4", "16"})
+    public int permits;
+
+    private RedisSemaphore redisSemaphore;
+    private RSemaphore rSemaphore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        redisSemaphore = context.getBean(RedisSemaphore.class);
+        rSemaphore = context.getBean(RedissonClient.class).getSemaphore(REDISSON_KEY);
+        rSemaphore.delete();
+        rSemaphore.trySetPermits(permits);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rSemaphore.delete();
+        BenchmarkContext.release();
+    }
+
+    @State(Scope.Thread)
+    public static class Holder {
+        String id;
+
+        @Setup(Level.Trial)
+        public void setup(ThreadParams threadParams) {
+            id = UUID.randomUUID() + ":" + threadParams.getThreadIndex();
+        }
+    }
+
+    @Benchmark
+    public boolean lua(Holder holder) throws InterruptedException {
+        if (!redisSemaphore.acquire(LUA_KEY, permits, holder.id, LEASE_MILLIS, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        return redisSemaphore.release(LUA_KEY, holder.id);
+    }
+
+    @Benchmark
+    public void redisson() throws InterruptedException {
+        rSemaphore.acquire();
+        rSemaphore.release();
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.bench;
+
+import com.github.cache.serializer.JsonValueSerializer;
+import com.github.cache.serializer.KryoValueSerializer;
+import com.github.cache.serializer.Lz4ValueSerializer;
+import com.github.cache.serializer.ValueSerializer;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值序列化的耗时和体积：原来的 Hutool JSON 与 Kryo、Kryo + LZ4 对比
+ * 只测序列化本身，不连接 Redis；每组参数开始时打印序列化后的字节数（serialized size），即写入 Redis 的数据量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private static final String PARAGRAPH = "保持谦虚，保持学习，脚踏实地，不好高骛远，先完成，再优化。"
+            + "Keep it simple: make it work, make it right, make it fast. ";
+
+    @Param({"json", "kryo", "kryo-lz4"})
+    public String codec;
+
+    @Param({"200", "20000"})
+    public int contentLength; // 文章正文的字符数
+
+    private ValueSerializer serializer;
+    private Article article;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (codec) {
+            case "json":
+                serializer = new JsonValueSerializer();
+                break;
+            case "kryo":
+                serializer = new KryoValueSerializer(16);
+                break;
+            case "kryo-lz4":
+                serializer = new Lz4ValueSerializer(new KryoValueSerializer(16), 1024);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的 codec：" + codec);
+        }
+
+        article = Article.sample(contentLength);
+        serialized = serializer.serialize(article);
+        if (!article.equals(serializer.deserialize(serialized, Article.class))) {
+            throw new IllegalStateException(codec + " 反序列化结果与原对象不一致");
+        }
+        // JMH fork 的标准输出不一定是 UTF-8，这里只输出 ASCII
+        System.out.printf("%n[%s, contentLength=%d] serialized size: %d bytes%n", codec, contentLength, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(article);
+    }
+
+    @Benchmark
+    public Article deserialize() {
+        return serializer.deserialize(serialized, Article.class);
+    }
+
+    /**
+     * 模拟缓存中的文章对象
+     */
+    @Data
+    public static class Article {
+        private Long id;
+        private String title;
+        private String author;
+        private List<String> tags;
+        private String content;
+        private long viewCount;
+        private long createdAt;
+
+        static Article sample(int contentLength) {
+            StringBuilder content = new StringBuilder(contentLength + PARAGRAPH.length());
+            while (content.length() < contentLength) {
+                content.append(PARAGRAPH);
+            }
+            Article article = new Article();
+            article.setId(42L);
+            article.setTitle("分布式锁与缓存击穿");
+            article.setAuthor("hachinekooo");
+            article.setTags(Arrays.asList("redis", "lock", "cache"));
+            article.setContent(content.substring(0, contentLength));
+            article.setViewCount(123_456L);
+            article.setCreatedAt(1_700_000_000_000L);
+            return article;
+        }
+    }
+}
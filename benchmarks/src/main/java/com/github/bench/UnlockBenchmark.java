@@ -0,0 +1,80 @@
+package com.github.bench;
+
+import com.github.cache.RedisLuaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 释放锁（比较并删除）的开销：预加载脚本走 EVALSHA vs 每次新建脚本对象
+ * legacy 复现了改造前 RedisLuaUtil.cad 的写法，配合 -prof gc 可以看到每次调用的分配量。
+ * 每次调用前都会先写入锁，保证两种写法都走删除成功的分支。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UnlockBenchmark {
+
+    private static final String LOCK_KEY = "bench_unlock";
+    private static final String OWNER = "bench_owner";
+    private static final String LEGACY_SCRIPT =
+            "local value = redis.call('get', KEYS[1]); " +
+                    "if value == ARGV[1] then " +
+                    "    return redis.call('del', KEYS[1]); " +
+                    "else " +
+                    "    return 0; " +
+                    "end";
+
+    private RedisLuaUtil redisLuaUtil;
+    private StringRedisTemplate stringRedisTemplate;
+    private String prefixedKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApplicationContext context = BenchmarkContext.acquire();
+        redisLuaUtil = context.getBean(RedisLuaUtil.class);
+        stringRedisTemplate = context.getBean(StringRedisTemplate.class);
+        prefixedKey = context.getEnvironment().getProperty("prefix.demo") + LOCK_KEY;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.release();
+    }
+
+    @Setup(Level.Invocation)
+    public void lock() {
+        stringRedisTemplate.opsForValue().set(prefixedKey, OWNER, 30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Long evalsha() {
+        return redisLuaUtil.cad(LOCK_KEY, OWNER);
+    }
+
+    @Benchmark
+    public Long legacy() {
+        return stringRedisTemplate.execute(
+                new DefaultRedisScript<>(LEGACY_SCRIPT, Long.class),
+                Collections.singletonList(prefixedKey),
+                OWNER);
+    }
+}
@@ -1,8 +1,20 @@
 package com.github;
 
 import com.github.bean.ApiResponse;
+import com.github.cache.AccessRecorder;
+import com.github.cache.ArticleIdFilter;
+import com.github.cache.CacheMetrics;
+import com.github.cache.CacheEntry;
+import com.github.cache.ClusterKeys;
+import com.github.cache.LockReleaseNotifier;
+import com.github.cache.LockWatchDog;
+import com.github.cache.NearCache;
 import com.github.cache.RedisClient;
 import com.github.cache.RedisLuaUtil;
+import com.github.cache.RedisSemaphore;
+import com.github.cache.RedisUnavailableException;
+import com.github.cache.SingleFlight;
+import com.github.cache.StaleRefresher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,12 +23,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Slf4j
 @RestController
@@ -31,102 +45,236 @@ public class ArticleController {
     private int MAX_RETRY_TIMES; // 最大自旋次数，防止无限循环
 
     @Value("${cache.lock.sleepTime:200}")
-    private long sleepTime; // 睡眠休息时间
+    private long sleepTime; // 睡眠休息时间，开启释放通知时作为等待通知的兜底超时
+
+    @Value("${cache.lock.notifyOnRelease:true}")
+    private boolean notifyOnRelease; // 是否通过 pub/sub 等待锁释放，关闭时退回固定睡眠
 
     @Value("${prefix.lock:lock_}")
     private String LOCK_PREFIX;
 
+    @Value("${cache.article.softTtl:600}")
+    private long softTtl; // 缓存逻辑过期时间(秒)，过期后先返回旧值再异步刷新
+
+    @Value("${cache.article.negativeTtl:60}")
+    private long negativeTtl; // 不存在的文章缓存空值的时间(秒)
+
+    @Value("${cache.article.hardTtl:3600}")
+    private long hardTtl; // 缓存在 Redis 中的过期时间(秒)，大于 softTtl，长期没有访问的文章自然淘汰
+
+    @Value("${article.maxId:1000}")
+    private long maxArticleId; // 模拟数据库中存在的文章 ID 范围 [1, maxId]
+
+    @Value("${cache.rebuild.permits:8}")
+    private int rebuildPermits; // 整个集群同时刷新缓存的最大数量，0 表示不限制
+
+    @Value("${cache.rebuild.permitLease:300}")
+    private long rebuildPermitLease; // 刷新许可的租约(秒)，需要覆盖数据库查询时间
+
+    @Value("${cache.async.loadThreads:16}")
+    private int loadThreads; // 异步接口查询数据库的线程数
+
+    static final String ARTICLE_TAG = "article"; // 文章相关 key 的 hash tag 分组，预热时也使用
+
+    private static final String FENCE_SUFFIX = "_fence"; // fence 计数器 key 的后缀
+
+    private static final String LOCAL_FLIGHT_PREFIX = "local:"; // 降级加载在 SingleFlight 中使用的 key 前缀，与正常流程区分
+
+    private static final long LOCK_TIMEOUT = 60L; // 锁持有时间(秒)，由 watchdog 续约
+
+    private static final String REBUILD_SEMAPHORE = "article_rebuild_semaphore"; // 限制刷新并发的信号量
+
     private final RedisClient redisClient;
     private final RedisLuaUtil redisLuaUtil;
+    private final SingleFlight singleFlight;
+    private final LockWatchDog lockWatchDog;
+    private final LockReleaseNotifier lockReleaseNotifier;
+    private final StaleRefresher staleRefresher;
+    private final ArticleIdFilter articleIdFilter;
+    private final NearCache nearCache;
+    private final RedisSemaphore redisSemaphore;
+    private final CacheMetrics cacheMetrics;
+    private final AccessRecorder accessRecorder;
+
+    private CacheMetrics.CacheCounter articleCache; // 文章缓存的命中统计
 
-    private final ScheduledExecutorService watchdogExecutor = Executors.newSingleThreadScheduledExecutor();
+    private ExecutorService loadExecutor; // 异步接口查询数据库使用的线程池，不占用 Tomcat 线程
+
+    @PostConstruct
+    public void initLoadExecutor() {
+        loadExecutor = Executors.newFixedThreadPool(loadThreads);
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        articleCache = cacheMetrics.cacheCounter(ARTICLE_PREFIX);
+    }
 
     @PreDestroy
-    public void shutdownWatchdog() {
-        watchdogExecutor.shutdownNow();
+    public void shutdownLoadExecutor() {
+        loadExecutor.shutdownNow();
     }
 
     @GetMapping("/queryById/{articleId}")
-    public ApiResponse queryById(@PathVariable Long articleId) throws InterruptedException {
+    public ApiResponse queryById(@PathVariable Long articleId) throws Exception {
+        try {
+            return queryByIdWithRedis(articleId);
+        } catch (RedisUnavailableException e) {
+            // 只会来自查询数据库之前的 Redis 操作（读缓存、加锁），加载之后的写入由 writeLoaded 降级，不会重复查询数据库
+            log.warn("Redis 熔断中，降级为本地锁加载：{}", articleId);
+            return loadWithLocalLock(articleId);
+        }
+    }
+
+    private ApiResponse queryByIdWithRedis(Long articleId) throws Exception {
+        // 检查缓存，优先本地缓存；接近过期时 XFetch 设置 refreshEarly，值照常返回
+        boolean[] refreshEarly = {false};
+        CacheEntry entry = CacheEntry.parse(redisClient.stringGetWithNearCache(cacheKey(articleId), () -> refreshEarly[0] = true));
+        if (entry != null) { // 缓存命中直接返回
+            articleCache.hit();
+            recordAccess(articleId, entry);
+            if (entry.isExpired() || refreshEarly[0]) { // 已逻辑过期或需要提前刷新，先返回旧值，由后台异步刷新
+                submitRefresh(articleId, entry);
+            } else {
+                log.info("命中缓存，直接返回");
+            }
+            return toResponse(entry);
+        }
+        articleCache.miss();
+
+        // 布隆过滤器判断一定不存在的 ID，不加锁也不查询数据库
+        ArticleIdFilter.Result filtered = articleIdFilter.check(articleId);
+        if (filtered == ArticleIdFilter.Result.ABSENT) {
+            return ApiResponse.error(404, "文章不存在");
+        }
+        recordAccess(articleId, filtered);
+
+        // 缓存未命中，同一个 articleId 在本节点只放一个线程去竞争分布式锁，其它线程等待它的结果
+        return singleFlight.execute(cacheKey(articleId), () -> loadWithLock(articleId, filtered));
+    }
+
+    /**
+     * Redis 熔断时的降级逻辑：用进程内的 SingleFlight 代替分布式锁，查询结果只写入本地缓存
+     * 每个节点每个 articleId 同一时刻最多只有一个线程查询数据库，只有同一个 articleId 的请求互相等待，
+     * 不按分段加锁，一次较慢的数据库查询不会阻塞其它文章；Redis 恢复后自动回到正常流程
+     */
+    private ApiResponse<String> loadWithLocalLock(Long articleId) throws Exception {
+        String cacheKey = redisClient.fullKey(cacheKey(articleId));
+        CacheEntry entry = CacheEntry.parse(nearCache.getLocal(cacheKey)); // 降级期间逻辑过期的旧值也直接返回
+        if (entry != null) {
+            return toResponse(entry);
+        }
+        return singleFlight.execute(LOCAL_FLIGHT_PREFIX + cacheKey, () -> loadLocally(articleId, cacheKey));
+    }
+
+    /**
+     * loadWithLocalLock 的异步版本，数据库查询在 loadExecutor 中执行，等待的请求共享同一个 future，不占用线程
+     */
+    private CompletableFuture<ApiResponse<String>> loadWithLocalLockAsync(Long articleId) {
+        String cacheKey = redisClient.fullKey(cacheKey(articleId));
+        CacheEntry entry = CacheEntry.parse(nearCache.getLocal(cacheKey));
+        if (entry != null) {
+            return CompletableFuture.completedFuture(toResponse(entry));
+        }
+        return singleFlight.executeAsync(LOCAL_FLIGHT_PREFIX + cacheKey,
+                () -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return loadLocally(articleId, cacheKey);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CompletionException(e);
+                    }
+                }, loadExecutor));
+    }
+
+    /**
+     * 查询数据库并只写入本地缓存，同一个 key 由 SingleFlight 保证同时只有一个线程执行
+     *
+     * @param cacheKey 本地缓存的 key（Redis 中的完整 key）
+     */
+    private ApiResponse<String> loadLocally(Long articleId, String cacheKey) throws InterruptedException {
+        // 上一轮加载可能刚刚完成
+        CacheEntry entry = CacheEntry.parse(nearCache.getLocal(cacheKey));
+        if (entry != null) {
+            return toResponse(entry);
+        }
+        CacheEntry loaded = toEntry(selectById(articleId), ArticleIdFilter.Result.UNCHECKED);
+        nearCache.putLocal(cacheKey, loaded.toJson());
+        return toResponse(loaded);
+    }
+
+    /**
+     * @param filtered 布隆过滤器的查询结果，数据库中不存在时据此判断是否为误判
+     */
+    private ApiResponse loadWithLock(Long articleId, ArticleIdFilter.Result filtered) throws InterruptedException {
         int retryTimes = 0;
+        long waitStart = System.nanoTime();
 
         while (retryTimes <= MAX_RETRY_TIMES) {
-            String article = redisClient.stringGet(ARTICLE_PREFIX + articleId); // 检查缓存
+            CacheEntry entry = CacheEntry.parse(redisClient.stringGet(cacheKey(articleId))); // 检查缓存
 
-            if (article != null) { // 缓存命中直接返回
+            if (entry != null) { // 缓存命中直接返回，逻辑过期的旧值也先返回
                 log.info("命中缓存，直接返回");
-                return ApiResponse.success(article);
+                return toResponse(entry);
             }
 
             // 如果已经达到最大重试次数，返回数据库查询结果
             if (retryTimes == MAX_RETRY_TIMES) {
-                String queryResult = selectById(articleId);
-                redisClient.stringSet(ARTICLE_PREFIX + articleId, queryResult);
-                return ApiResponse.success(queryResult);
+                CacheEntry loaded = toEntry(selectById(articleId), filtered);
+                writeLoaded(cacheKey(articleId), loaded, () -> writeUnfenced(cacheKey(articleId), loaded));
+                return toResponse(loaded);
             }
 
-            String lockKey = LOCK_PREFIX + articleId;
-            String lockID = UUID.randomUUID().toString();
-            long lockTimeout = 60L;
-            Boolean isLocked = redisClient.stringSetIfAbsentWithExpire(lockKey, lockID, lockTimeout, TimeUnit.SECONDS); // 尝试获取锁
+            String lockKey = lockKey(articleId);
+            String fenceKey = lockKey + FENCE_SUFFIX;
+            // 尝试获取锁，同时拿到单调递增的 fencing token，token 即锁的值
+            Long fenceToken = redisLuaUtil.tryLockWithFence(lockKey, fenceKey, LOCK_TIMEOUT, TimeUnit.SECONDS);
+            boolean isLocked = fenceToken != null && fenceToken > 0;
+            String lockID = String.valueOf(fenceToken);
+            long lockedAt = System.nanoTime();
+            if (isLocked) {
+                cacheMetrics.recordLockWait(CacheMetrics.Strategy.LUA, lockedAt - waitStart);
+            }
 
-            ScheduledFuture<?> watchDogFuture = null;
             try {
                 if (isLocked) { // 获取锁成功
-                    log.info("线程 {} 获取分布式锁成功：{}", Thread.currentThread() ,LOCK_PREFIX + articleId);
+                    log.info("线程 {} 获取分布式锁成功：{}", Thread.currentThread() ,lockKey(articleId));
 
                     // 再次检查缓存，防止其他线程已经填充了缓存
-                    String cachedArticle = redisClient.stringGet(ARTICLE_PREFIX + articleId);
-                    if (cachedArticle != null) {
+                    CacheEntry cachedEntry = CacheEntry.parse(redisClient.stringGet(cacheKey(articleId)));
+                    if (cachedEntry != null) {
                         log.info("双重检查缓存命中，直接返回");
-                        return ApiResponse.success(cachedArticle);
+                        return toResponse(cachedEntry);
                     }
 
-                    watchDogFuture = startWatchDog(lockKey, lockID, lockTimeout, TimeUnit.SECONDS);// 开启watchdog
+                    lockWatchDog.watch(lockKey, lockID, LOCK_TIMEOUT, TimeUnit.SECONDS); // 交给 watchdog 续约
 
-                    String queryResult = selectById(articleId); // 查询数据库
+                    CacheEntry loaded = toEntry(selectById(articleId), filtered); // 查询数据库
 
                     log.info("写入到缓存...");
-                    redisClient.stringSet(ARTICLE_PREFIX + articleId, queryResult);
+                    // 只有 token 仍然是最新的才写入，锁过期后被其他线程接管时放弃写入
+                    writeLoaded(cacheKey(articleId), loaded, () -> {
+                        if (!redisLuaUtil.setIfFenceValid(cacheKey(articleId), fenceKey, fenceToken, loaded.toJson(), physicalTtlMillis(loaded))) {
+                            log.warn("fencing token {} 已失效，放弃写入缓存：{}", fenceToken, lockKey);
+                        }
+                    });
 
-                    return ApiResponse.success(queryResult);
+                    return toResponse(loaded);
                 } else { // 获取锁失败，自旋重试
-                    log.info("获取分布式锁 {} 失败，正在进行第 {} 次重试", LOCK_PREFIX + articleId,retryTimes + 1);
+                    log.info("获取分布式锁 {} 失败，正在进行第 {} 次重试", lockKey(articleId),retryTimes + 1);
+                    cacheMetrics.lockRetry(CacheMetrics.Strategy.LUA);
                     retryTimes++;
-                    Thread.sleep(sleepTime); // 等待一段时间再重试
+                    if (notifyOnRelease) {
+                        lockReleaseNotifier.await(lockKey, sleepTime); // 等待锁释放通知，最多等待 sleepTime
+                    } else {
+                        Thread.sleep(sleepTime); // 等待一段时间再重试
+                    }
                 }
             } finally {
                 if (isLocked) { // 只有成功获取锁的线程才需要释放锁
-                    try {
-                        int releaseRetry = 0;
-                        boolean releaseStatus = false;
-                        while (releaseRetry < 3 && !releaseStatus) {
-                            try {
-                                // 检查锁是否已过期
-                                if (redisClient.ttl(lockKey) < 0) {
-                                    log.warn("锁已自动过期，无需释放");
-                                    releaseStatus = true;
-                                    break;
-                                }
-
-                                Long result = redisLuaUtil.cad(lockKey, lockID);
-                                releaseStatus = result != null && result > 0;
-                                log.info("释放锁 {} 结果: {}", LOCK_PREFIX + articleId, result);
-                            } catch (Exception e) {
-                                log.warn("释放锁异常，重试中...", e);
-                                Thread.sleep(100);
-                            }
-                            releaseRetry++;
-                        }
-                        if (!releaseStatus) {
-                            log.error("最终未能释放锁: {}", lockKey);
-                        }
-                    } finally {
-                        if (watchDogFuture != null) {
-                            log.info("watchdog：取消对锁{}的续约检查", lockKey);
-                            watchDogFuture.cancel(true); // 强制中断续约任务
-                        }
-                    }
+                    lockWatchDog.unwatch(lockKey, lockID); // 先停止续约，再释放锁
+                    releaseLock(lockKey, lockID);
+                    cacheMetrics.recordLockHold(CacheMetrics.Strategy.LUA, System.nanoTime() - lockedAt);
                 }
             }
         }
@@ -134,40 +282,350 @@ public class ArticleController {
         return ApiResponse.error(0, "查询时失败");
     }
 
-    private String selectById(Long articleId) throws InterruptedException {
-        log.info("查询数据库。。。");
-        Thread.sleep(120_000); // 模拟数据库查询延迟
-        return "保持谦虚，保持学习，脚踏实地，不好高骛远，先完成，再优化。";
+    /**
+     * queryById 的异步版本
+     * 缓存查询、加锁、等待锁释放都走 Lettuce 异步命令，查询数据库在独立线程池中执行，
+     * 整个过程不占用 Tomcat 工作线程，等待锁的请求再多也不会影响缓存命中的请求
+     */
+    @GetMapping("/queryByIdAsync/{articleId}")
+    public CompletableFuture<ApiResponse<String>> queryByIdAsync(@PathVariable Long articleId) {
+        String cacheKey = cacheKey(articleId);
+        boolean[] refreshEarly = {false}; // 在 Lettuce 的 IO 线程上设置，future 完成之后才读取
+        return redisClient.stringGetWithNearCacheAsync(cacheKey, () -> refreshEarly[0] = true)
+                .thenCompose(raw -> {
+                    CacheEntry entry = CacheEntry.parse(raw);
+                    if (entry != null) {
+                        articleCache.hit();
+                        recordAccess(articleId, entry);
+                        if (entry.isExpired() || refreshEarly[0]) {
+                            submitRefresh(articleId, entry);
+                        }
+                        return CompletableFuture.completedFuture(toResponse(entry));
+                    }
+                    articleCache.miss();
+                    // 回调运行在 Lettuce 的 IO 线程上，布隆过滤器走异步查询，不阻塞 IO 线程
+                    return articleIdFilter.checkAsync(articleId).thenCompose(filtered -> {
+                        if (filtered == ArticleIdFilter.Result.ABSENT) {
+                            return CompletableFuture.completedFuture(ApiResponse.<String>error(404, "文章不存在"));
+                        }
+                        recordAccess(articleId, filtered);
+                        return singleFlight.executeAsync(cacheKey, () -> loadWithLockAsync(articleId, 0, System.nanoTime(), filtered));
+                    });
+                })
+                .handle((response, e) -> e == null ? CompletableFuture.completedFuture(response) : onAsyncError(articleId, e))
+                .thenCompose(Function.identity());
     }
 
-    private ScheduledFuture<?> startWatchDog(String lockKey, String lockId, long timeout, TimeUnit timeUnit) {
-        long interval = timeout * 2 / 3; // 60秒的锁，每40秒续约一次
-        log.info("启动 watchdog");
-        return watchdogExecutor.scheduleAtFixedRate(() -> {
-            try {
-                log.info("watchdog：对锁{} 进行续约检查", lockKey);
+    /**
+     * 异步查询失败时，Redis 熔断则降级为本地锁加载，其它异常直接返回错误
+     */
+    private CompletableFuture<ApiResponse<String>> onAsyncError(Long articleId, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (!(cause instanceof RedisUnavailableException)) {
+            log.error("异步查询出现异常", e);
+            return CompletableFuture.completedFuture(ApiResponse.error(0, "查询时发生异常"));
+        }
+        log.warn("Redis 熔断中，降级为本地锁加载：{}", articleId);
+        return loadWithLocalLockAsync(articleId)
+                .exceptionally(loadError -> {
+                    log.error("降级加载出现异常", loadError);
+                    return ApiResponse.error(0, "查询时发生异常");
+                });
+    }
 
-                Long ttl = redisClient.ttl(lockKey); // 获取锁的ttl
-                if (ttl == null) {
-                    log.warn("watchdog：锁不存在或访问异常，取消续约任务");
-                    throw new RuntimeException("锁不存在"); // 触发任务取消
+    /**
+     * loadWithLock 的异步版本，获取锁失败时异步等待锁释放通知后重试
+     *
+     * @param waitStart 开始竞争锁的时间(System.nanoTime)
+     * @param filtered  布隆过滤器的查询结果
+     */
+    private CompletableFuture<ApiResponse<String>> loadWithLockAsync(Long articleId, int retryTimes, long waitStart,
+                                                                    ArticleIdFilter.Result filtered) {
+        String cacheKey = cacheKey(articleId);
+        String lockKey = lockKey(articleId);
+        String fenceKey = lockKey + FENCE_SUFFIX;
+
+        return redisClient.stringGetAsync(cacheKey).thenCompose(raw -> {
+            CacheEntry entry = CacheEntry.parse(raw);
+            if (entry != null) {
+                return CompletableFuture.completedFuture(toResponse(entry));
+            }
+
+            // 如果已经达到最大重试次数，返回数据库查询结果
+            if (retryTimes == MAX_RETRY_TIMES) {
+                return CompletableFuture.supplyAsync(() -> {
+                    CacheEntry loaded = toEntry(selectByIdUnchecked(articleId), filtered);
+                    writeLoaded(cacheKey, loaded, () -> writeUnfenced(cacheKey, loaded));
+                    return toResponse(loaded);
+                }, loadExecutor);
+            }
+
+            return redisLuaUtil.tryLockWithFenceAsync(lockKey, fenceKey, LOCK_TIMEOUT, TimeUnit.SECONDS).thenCompose(fenceToken -> {
+                if (fenceToken == null || fenceToken <= 0) {
+                    log.info("获取分布式锁 {} 失败，正在进行第 {} 次重试", lockKey, retryTimes + 1);
+                    cacheMetrics.lockRetry(CacheMetrics.Strategy.LUA);
+                    return lockReleaseNotifier.awaitAsync(lockKey, sleepTime)
+                            .thenCompose(notified -> loadWithLockAsync(articleId, retryTimes + 1, waitStart, filtered));
                 }
+                cacheMetrics.recordLockWait(CacheMetrics.Strategy.LUA, System.nanoTime() - waitStart);
+                return loadAndCacheAsync(articleId, fenceToken, filtered);
+            });
+        });
+    }
+
+    /**
+     * 持有锁时异步查询数据库并按 fencing token 写入缓存，结束后异步释放锁
+     */
+    private CompletableFuture<ApiResponse<String>> loadAndCacheAsync(Long articleId, Long fenceToken,
+                                                                    ArticleIdFilter.Result filtered) {
+        String cacheKey = cacheKey(articleId);
+        String lockKey = lockKey(articleId);
+        String fenceKey = lockKey + FENCE_SUFFIX;
+        String lockID = String.valueOf(fenceToken);
+        long lockedAt = System.nanoTime();
+        log.info("获取分布式锁成功：{}", lockKey);
 
-                String lockIdInRedis = redisClient.stringGet(lockKey);
-                if (!lockId.equals(lockIdInRedis)) {
-                    log.warn("watchdog：锁值不匹配，可能已释放或过期");
-                    throw new RuntimeException("锁已失效");
+        return redisClient.stringGetAsync(cacheKey).thenCompose(raw -> {
+            CacheEntry cachedEntry = CacheEntry.parse(raw);
+            if (cachedEntry != null) {
+                log.info("双重检查缓存命中，直接返回");
+                return CompletableFuture.completedFuture(toResponse(cachedEntry));
+            }
+
+            lockWatchDog.watch(lockKey, lockID, LOCK_TIMEOUT, TimeUnit.SECONDS);
+            return CompletableFuture.supplyAsync(() -> toEntry(selectByIdUnchecked(articleId), filtered), loadExecutor)
+                    .thenCompose(loaded -> redisLuaUtil
+                            .setIfFenceValidAsync(cacheKey, fenceKey, fenceToken, loaded.toJson(), physicalTtlMillis(loaded))
+                            .handle((written, e) -> {
+                                if (e != null) {
+                                    // 已经加载出结果，熔断时只写本地缓存，不交给 onAsyncError 重新加载
+                                    writeLoaded(cacheKey, loaded, () -> {
+                                        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                                    });
+                                } else if (!written) {
+                                    log.warn("fencing token {} 已失效，放弃写入缓存：{}", fenceToken, lockKey);
+                                }
+                                return toResponse(loaded);
+                            }));
+        }).whenComplete((result, e) -> {
+            lockWatchDog.unwatch(lockKey, lockID);
+            redisLuaUtil.cadAsync(lockKey, lockID).whenComplete((released, releaseError) -> {
+                cacheMetrics.recordLockHold(CacheMetrics.Strategy.LUA, System.nanoTime() - lockedAt);
+                if (releaseError != null) {
+                    // 不再重试，锁会在租期到期后自动释放
+                    cacheMetrics.releaseFailed(CacheMetrics.Strategy.LUA);
+                    log.warn("释放锁 {} 异常", lockKey, releaseError);
+                } else {
+                    if (released == null || released == 0) {
+                        cacheMetrics.releaseFailed(CacheMetrics.Strategy.LUA);
+                    }
+                    log.info("释放锁 {} 结果: {}", lockKey, released);
                 }
+            });
+        });
+    }
+
+    /**
+     * 提交后台刷新，同一个 key 在本节点只提交一次
+     *
+     * @param stale 读到的旧条目，逻辑过期或 XFetch 判断需要提前刷新
+     */
+    private void submitRefresh(Long articleId, CacheEntry stale) {
+        staleRefresher.refresh(redisClient.fullKey(cacheKey(articleId)), () -> refreshInBackground(articleId, stale.getExpireAt()));
+    }
+
+    /**
+     * 后台刷新逻辑过期或即将过期的缓存
+     * 只尝试一次加锁，抢不到说明其它节点或线程正在刷新，直接放弃
+     *
+     * @param staleExpireAt 读到的旧条目的逻辑过期时间，缓存中已经换成其它条目时说明有人刷新过
+     */
+    private void refreshInBackground(Long articleId, long staleExpireAt) {
+        String cacheKey = cacheKey(articleId);
+        String lockKey = lockKey(articleId);
+        String fenceKey = lockKey + FENCE_SUFFIX;
+
+        Long fenceToken = redisLuaUtil.tryLockWithFence(lockKey, fenceKey, LOCK_TIMEOUT, TimeUnit.SECONDS);
+        if (fenceToken == null || fenceToken <= 0) {
+            log.info("锁 {} 已被持有，由持有者负责刷新缓存", lockKey);
+            return;
+        }
+        String lockID = String.valueOf(fenceToken);
+        long lockedAt = System.nanoTime();
+
+        try {
+            // 加锁期间其它节点可能已经刷新过；提前刷新时旧条目还没有逻辑过期，按过期时间判断是否已被替换
+            CacheEntry entry = CacheEntry.parse(redisClient.stringGet(cacheKey));
+            if (entry != null && !entry.isExpired() && entry.getExpireAt() != staleExpireAt) {
+                staleRefresher.refreshed(redisClient.fullKey(cacheKey));
+                return;
+            }
 
-                // 续约操作
-                redisClient.expire(lockKey, timeout, timeUnit);
-                log.info("watchdog：锁续约成功，TTL重置为 {} {}", timeout, timeUnit);
+            // 限制整个集群同时查询数据库的刷新任务数量，拿不到许可时继续返回旧值，backoff 之后再刷新
+            String permitHolder = lockKey + ":" + lockID;
+            if (rebuildPermits > 0 && !redisSemaphore.tryAcquire(REBUILD_SEMAPHORE, rebuildPermits, permitHolder, rebuildPermitLease, TimeUnit.SECONDS)) {
+                log.info("刷新并发已达上限 {}，稍后再刷新缓存 {}", rebuildPermits, cacheKey);
+                return;
+            }
+
+            try {
+                lockWatchDog.watch(lockKey, lockID, LOCK_TIMEOUT, TimeUnit.SECONDS);
+                CacheEntry loaded = toEntry(selectById(articleId), ArticleIdFilter.Result.UNCHECKED);
+                if (redisLuaUtil.setIfFenceValid(cacheKey, fenceKey, fenceToken, loaded.toJson(), physicalTtlMillis(loaded))) {
+                    staleRefresher.refreshed(redisClient.fullKey(cacheKey));
+                    log.info("异步刷新缓存 {} 成功", cacheKey);
+                } else {
+                    log.warn("fencing token {} 已失效，放弃写入缓存：{}", fenceToken, lockKey);
+                }
+            } finally {
+                if (rebuildPermits > 0) {
+                    redisSemaphore.release(REBUILD_SEMAPHORE, permitHolder);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lockWatchDog.unwatch(lockKey, lockID);
+            try {
+                releaseLock(lockKey, lockID);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cacheMetrics.recordLockHold(CacheMetrics.Strategy.LUA, System.nanoTime() - lockedAt);
+        }
+    }
+
+    /**
+     * 释放锁，Redis 异常时最多重试 3 次
+     */
+    private void releaseLock(String lockKey, String lockID) throws InterruptedException {
+        int releaseRetry = 0;
+        boolean releaseStatus = false;
+        while (releaseRetry < 3 && !releaseStatus) {
+            try {
+                // 返回 0 说明锁已过期或已被其他持有者获取，无需再释放
+                Long result = redisLuaUtil.cad(lockKey, lockID);
+                releaseStatus = true;
+                if (result == 0) {
+                    cacheMetrics.releaseFailed(CacheMetrics.Strategy.LUA);
+                }
+                log.info("释放锁 {} 结果: {}", lockKey, result);
+            } catch (RedisUnavailableException e) {
+                // 熔断期间重试没有意义，锁会在租期到期后自动释放
+                log.warn("Redis 熔断中，放弃释放锁 {}，等待租期到期", lockKey);
+                break;
             } catch (Exception e) {
-                log.warn("watchdog：锁续约异常", e);
+                log.warn("释放锁异常，重试中...", e);
+                Thread.sleep(100);
+            }
+            releaseRetry++;
+        }
+        if (!releaseStatus) {
+            cacheMetrics.releaseFailed(CacheMetrics.Strategy.LUA);
+            log.error("最终未能释放锁: {}", lockKey);
+        }
+    }
+
+    /**
+     * 计入访问排行（预热的热点来源），只记录确认存在或可能存在的文章，
+     * 随机 ID、遍历 ID 的请求不会进入本地计数和共享的排行
+     */
+    private void recordAccess(Long articleId, CacheEntry entry) {
+        if (!entry.isMissing()) {
+            accessRecorder.record(articleId);
+        }
+    }
+
+    /**
+     * 缓存未命中时，只有布隆过滤器实际判断可能存在才计入访问排行，过滤器不可用时不计入
+     */
+    private void recordAccess(Long articleId, ArticleIdFilter.Result filtered) {
+        if (filtered == ArticleIdFilter.Result.MAYBE_PRESENT) {
+            accessRecorder.record(articleId);
+        }
+    }
+
+    /**
+     * 把数据库查询结果包装成缓存条目，不存在的文章缓存一个短期的空值
+     *
+     * @param filtered 这次加载前布隆过滤器的查询结果，后台刷新、降级等没有查询过滤器的路径传 UNCHECKED
+     */
+    private CacheEntry toEntry(String queryResult, ArticleIdFilter.Result filtered) {
+        if (queryResult == null) {
+            articleIdFilter.recordFalsePositive(filtered); // 只有过滤器实际判断为可能存在时才是误判
+            return CacheEntry.missing(negativeTtl);
+        }
+        return CacheEntry.of(queryResult, softTtl);
+    }
+
+    /**
+     * 缓存条目在 Redis 中的过期时间(毫秒)，写入时再由 TtlPolicies 浮动，XFetch 按它的剩余时间提前刷新
+     */
+    private long physicalTtlMillis(CacheEntry entry) {
+        return TimeUnit.SECONDS.toMillis(entry.isMissing() ? negativeTtl : hardTtl);
+    }
+
+    /**
+     * 把已经从数据库加载出的结果写入 Redis
+     * 此时 Redis 熔断不再抛给 queryById 走降级（那样会重新查询一次数据库），结果只写入本地缓存，照常返回
+     *
+     * @param write 写入 Redis 的操作，可能直接抛出或以 CompletionException 包装 RedisUnavailableException
+     */
+    private void writeLoaded(String cacheKey, CacheEntry loaded, Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof RedisUnavailableException)) {
                 throw e;
             }
+            log.warn("Redis 熔断中，已加载的结果只写入本地缓存：{}", cacheKey);
+            nearCache.putLocal(redisClient.fullKey(cacheKey), loaded.toJson());
+        }
+    }
+
+    /**
+     * 不经过 fencing token 直接写入缓存
+     */
+    private void writeUnfenced(String cacheKey, CacheEntry entry) {
+        redisClient.stringSetWithExpire(cacheKey, entry.toJson(), entry.isMissing() ? negativeTtl : hardTtl);
+    }
 
-        }, interval, interval, timeUnit);
+    /**
+     * 文章缓存的 key，和锁、fence 计数器带有相同的 hash tag，集群模式下落在同一个槽位
+     */
+    private String cacheKey(Long articleId) {
+        return ARTICLE_PREFIX + ClusterKeys.hashTag(ARTICLE_TAG, articleId);
+    }
+
+    private String lockKey(Long articleId) {
+        return LOCK_PREFIX + ClusterKeys.hashTag(ARTICLE_TAG, articleId);
+    }
 
+    private ApiResponse<String> toResponse(CacheEntry entry) {
+        return entry.isMissing() ? ApiResponse.error(404, "文章不存在") : ApiResponse.success(entry.getValue());
+    }
+
+    private String selectByIdUnchecked(Long articleId) {
+        try {
+            return selectById(articleId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private String selectById(Long articleId) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            log.info("查询数据库。。。");
+            Thread.sleep(120_000); // 模拟数据库查询延迟
+            if (articleId < 1 || articleId > maxArticleId) {
+                return null; // 模拟文章不存在
+            }
+            return "保持谦虚，保持学习，脚踏实地，不好高骛远，先完成，再优化。";
+        } finally {
+            cacheMetrics.recordDbLoad(CacheMetrics.Strategy.LUA, System.nanoTime() - start);
+        }
     }
 }
\ No newline at end of file
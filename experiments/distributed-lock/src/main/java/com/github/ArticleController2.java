@@ -1,9 +1,18 @@
 package com.github;
 
 import com.github.bean.ApiResponse;
+import com.github.cache.AccessRecorder;
+import com.github.cache.ArticleIdFilter;
+import com.github.cache.CacheMetrics;
+import com.github.cache.CacheEntry;
+import com.github.cache.ClusterKeys;
+import com.github.cache.NearCache;
+import com.github.cache.StaleRefresher;
+import com.github.cache.TtlPolicies;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +21,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @RestController
@@ -26,69 +42,131 @@ public class ArticleController2 {
     @Value("${prefix.lock:lock_}")
     private String LOCK_PREFIX;
 
+    private static final String ARTICLE_TAG = "article"; // 文章相关 key 的 hash tag 分组
+
     @Value("${cache.lock.waitTime:3}")
     private long lockWaitTime; // 获取锁等待时间(秒)
 
     @Value("${cache.lock.leaseTime:30}")
     private long lockLeaseTime; // 锁持有时间(秒)
 
+    @Value("${cache.article.softTtl:600}")
+    private long softTtl; // 缓存逻辑过期时间(秒)，过期后先返回旧值再异步刷新
+
+    @Value("${cache.article.negativeTtl:60}")
+    private long negativeTtl; // 不存在的文章缓存空值的时间(秒)
+
+    @Value("${cache.article.hardTtl:3600}")
+    private long hardTtl; // 缓存在 Redis 中的过期时间(秒)，大于 softTtl，长期没有访问的文章自然淘汰
+
+    @Value("${article.maxId:1000}")
+    private long maxArticleId; // 模拟数据库中存在的文章 ID 范围 [1, maxId]
+
+    @Value("${cache.async.loadThreads:16}")
+    private int loadThreads; // 异步接口查询数据库的线程数
+
     private final RedissonClient redissonClient;
+    private final NearCache nearCache;
+    private final StaleRefresher staleRefresher;
+    private final ArticleIdFilter articleIdFilter;
+    private final CacheMetrics cacheMetrics;
+    private final AccessRecorder accessRecorder;
+    private final TtlPolicies ttlPolicies;
+
+    private CacheMetrics.CacheCounter articleCache; // 文章缓存的命中统计
+
+    /**
+     * 异步加锁时使用的持有者 ID
+     * 异步接口加锁和解锁不在同一个线程上，不能用线程 ID 标识持有者；取负数避免和真实线程 ID 冲突
+     */
+    private final AtomicLong asyncOwnerIds = new AtomicLong();
+
+    private ExecutorService loadExecutor; // 异步接口查询数据库使用的线程池，不占用 Tomcat 线程
+
+    @PostConstruct
+    public void initLoadExecutor() {
+        loadExecutor = Executors.newFixedThreadPool(loadThreads);
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        articleCache = cacheMetrics.cacheCounter(ARTICLE_PREFIX);
+    }
+
+    @PreDestroy
+    public void shutdownLoadExecutor() {
+        loadExecutor.shutdownNow();
+    }
 
     @GetMapping("/queryById2/{articleId}")
     public ApiResponse queryById(@PathVariable Long articleId) {
-        String cacheKey = ARTICLE_PREFIX + articleId;
+        String cacheKey = cacheKey(articleId);
 
-        // 检查缓存
+        // 检查缓存，优先本地缓存
         RBucket<String> bucket = redissonClient.getBucket(cacheKey);
-        String article = bucket.get();
-        if (article != null) {
-            log.info("命中缓存，直接返回");
-            return ApiResponse.success(article);
+        CacheEntry entry = CacheEntry.parse(nearCache.get(cacheKey, k -> bucket.get()));
+        if (entry != null) {
+            articleCache.hit();
+            recordAccess(articleId, entry);
+            if (entry.isExpired()) { // 已逻辑过期，先返回旧值，由后台异步刷新
+                staleRefresher.refresh(cacheKey, () -> refreshInBackground(articleId));
+            } else {
+                log.info("命中缓存，直接返回");
+            }
+            return toResponse(entry);
         }
+        articleCache.miss();
+
+        // 布隆过滤器判断一定不存在的 ID，不加锁也不查询数据库
+        ArticleIdFilter.Result filtered = articleIdFilter.check(articleId);
+        if (filtered == ArticleIdFilter.Result.ABSENT) {
+            return ApiResponse.error(404, "文章不存在");
+        }
+        recordAccess(articleId, filtered);
 
         // 定义分布式锁的key
-        String lockKey = LOCK_PREFIX + articleId;
+        String lockKey = lockKey(articleId);
         // 获取Redisson的锁实例
         RLock lock = redissonClient.getLock(lockKey);
 
         try {
             // 尝试获取锁，在 lockWaitTime 时间内自旋重试，如果超过这个时间还设置失败就返回false
             // Redisson的锁会自动续期，默认锁TTL = 30，自动续期的时候也重置TTL = 30，所以不需要手动实现看门狗
+            long waitStart = System.nanoTime();
             boolean isLocked = lock.tryLock(lockWaitTime, TimeUnit.SECONDS);
 
             if (isLocked) {
+                long lockedAt = System.nanoTime();
+                cacheMetrics.recordLockWait(CacheMetrics.Strategy.REDISSON, lockedAt - waitStart);
                 log.info("线程 {} 获取分布式锁成功：{}", Thread.currentThread(), lockKey);
 
-                // 双重检查，防止在获取锁的过程中其他线程已经设置了缓存
-                article = bucket.get();
-                if (article != null) {
-                    log.info("获取锁后二次检查缓存命中，直接返回");
-                    return ApiResponse.success(article);
-                }
-
                 try {
+                    // 双重检查，防止在获取锁的过程中其他线程已经设置了缓存
+                    entry = CacheEntry.parse(bucket.get());
+                    if (entry != null) {
+                        log.info("获取锁后二次检查缓存命中，直接返回");
+                        return toResponse(entry);
+                    }
+
                     // 查询数据库
-                    String queryResult = selectById(articleId);
+                    CacheEntry loaded = toEntry(selectById(articleId), filtered);
 
                     // 写入缓存
                     log.info("线程 {} 正在操作写入缓存...", Thread.currentThread());
-                    bucket.set(queryResult);
+                    write(bucket, loaded);
+                    nearCache.broadcastInvalidate(cacheKey); // 通知各节点清除本地缓存
 
                     log.info("线程 {} 查询数据库并写入缓存成功，返回查询结果", Thread.currentThread());
-                    return ApiResponse.success(queryResult);
+                    return toResponse(loaded);
                 } finally {
-                    // 释放锁，Redisson会自动处理锁的释放
-                    // 即使在处理过程中发生异常，也会释放锁
-                    if (lock.isHeldByCurrentThread()) {
-                        lock.unlock();
-                        log.info("线程 {} 释放分布式锁：{}", Thread.currentThread(), lockKey);
-                    }
+                    // 释放锁，二次检查命中或处理过程中发生异常也会释放锁
+                    unlock(lock, lockKey, lockedAt);
                 }
             } else {
                 log.info("线程 {} 获取分布式锁 {} 失败，返回数据库查询结果", Thread.currentThread(), lockKey);
                 // 获取锁失败时，直接查询数据库并返回结果，但不缓存
                 String queryResult = selectById(articleId);
-                return ApiResponse.success(queryResult);
+                return queryResult == null ? ApiResponse.error(404, "文章不存在") : ApiResponse.success(queryResult);
             }
         } catch (InterruptedException e) {
             log.error("获取分布式锁过程中被中断", e);
@@ -100,12 +178,220 @@ public class ArticleController2 {
         }
     }
 
+    /**
+     * queryById 的异步版本
+     * 缓存查询、加锁、解锁都走 Redisson 的异步 API，查询数据库在独立线程池中执行，
+     * 整个过程不占用 Tomcat 工作线程
+     */
+    @GetMapping("/queryById2Async/{articleId}")
+    public CompletableFuture<ApiResponse<String>> queryByIdAsync(@PathVariable Long articleId) {
+        String cacheKey = cacheKey(articleId);
+        RBucket<String> bucket = redissonClient.getBucket(cacheKey);
+
+        return nearCache.getAsync(cacheKey, k -> bucket.getAsync())
+                .thenCompose(raw -> {
+                    CacheEntry entry = CacheEntry.parse(raw);
+                    if (entry != null) {
+                        articleCache.hit();
+                        recordAccess(articleId, entry);
+                        if (entry.isExpired()) {
+                            staleRefresher.refresh(cacheKey, () -> refreshInBackground(articleId));
+                        }
+                        return CompletableFuture.completedFuture(toResponse(entry));
+                    }
+                    articleCache.miss();
+                    // 回调运行在 Redisson 的 netty 线程上，不能调用同步的 contains，布隆过滤器走异步查询
+                    return articleIdFilter.checkAsync(articleId).thenCompose(filtered -> {
+                        if (filtered == ArticleIdFilter.Result.ABSENT) {
+                            return CompletableFuture.completedFuture(ApiResponse.<String>error(404, "文章不存在"));
+                        }
+                        recordAccess(articleId, filtered);
+                        return loadWithLockAsync(articleId, bucket, filtered);
+                    });
+                })
+                .exceptionally(e -> {
+                    log.error("异步查询出现异常", e);
+                    return ApiResponse.error(0, "查询时发生异常");
+                });
+    }
+
+    private CompletableFuture<ApiResponse<String>> loadWithLockAsync(Long articleId, RBucket<String> bucket,
+                                                                    ArticleIdFilter.Result filtered) {
+        String cacheKey = cacheKey(articleId);
+        String lockKey = lockKey(articleId);
+        RLock lock = redissonClient.getLock(lockKey);
+        long ownerId = asyncOwnerIds.decrementAndGet();
+
+        // leaseTime 传 -1，由 Redisson 的看门狗按 ownerId 自动续期
+        long waitStart = System.nanoTime();
+        return lock.tryLockAsync(lockWaitTime, -1, TimeUnit.SECONDS, ownerId).toCompletableFuture().thenCompose(isLocked -> {
+            if (!isLocked) {
+                log.info("获取分布式锁 {} 失败，返回数据库查询结果", lockKey);
+                return CompletableFuture.supplyAsync(() -> {
+                    String queryResult = selectByIdUnchecked(articleId);
+                    return queryResult == null ? ApiResponse.<String>error(404, "文章不存在") : ApiResponse.success(queryResult);
+                }, loadExecutor);
+            }
+
+            long lockedAt = System.nanoTime();
+            cacheMetrics.recordLockWait(CacheMetrics.Strategy.REDISSON, lockedAt - waitStart);
+            log.info("异步获取分布式锁成功：{}", lockKey);
+            return bucket.getAsync().toCompletableFuture()
+                    .thenCompose(raw -> {
+                        CacheEntry entry = CacheEntry.parse(raw);
+                        if (entry != null) {
+                            log.info("获取锁后二次检查缓存命中，直接返回");
+                            return CompletableFuture.completedFuture(toResponse(entry));
+                        }
+                        return CompletableFuture.supplyAsync(() -> toEntry(selectByIdUnchecked(articleId), filtered), loadExecutor)
+                                .thenCompose(loaded -> writeAsync(bucket, loaded)
+                                        // 回调运行在 Redisson 的 IO 线程上，广播失效消息切回业务线程池
+                                        .thenApplyAsync(v -> {
+                                            nearCache.broadcastInvalidate(cacheKey);
+                                            return toResponse(loaded);
+                                        }, loadExecutor));
+                    })
+                    .whenComplete((result, e) -> lock.unlockAsync(ownerId).onComplete((v, unlockError) -> {
+                        cacheMetrics.recordLockHold(CacheMetrics.Strategy.REDISSON, System.nanoTime() - lockedAt);
+                        if (unlockError != null) {
+                            cacheMetrics.releaseFailed(CacheMetrics.Strategy.REDISSON);
+                            log.warn("释放分布式锁 {} 异常", lockKey, unlockError);
+                        } else {
+                            log.info("释放分布式锁：{}", lockKey);
+                        }
+                    }));
+        });
+    }
+
+    /**
+     * 后台刷新逻辑过期的缓存
+     * 不等待锁，抢不到说明其它节点或线程正在刷新，直接放弃
+     */
+    private void refreshInBackground(Long articleId) {
+        String cacheKey = cacheKey(articleId);
+        String lockKey = lockKey(articleId);
+        RLock lock = redissonClient.getLock(lockKey);
+        if (!lock.tryLock()) {
+            log.info("锁 {} 已被持有，由持有者负责刷新缓存", lockKey);
+            return;
+        }
+        long lockedAt = System.nanoTime();
+
+        try {
+            // 加锁期间其它节点可能已经刷新过
+            RBucket<String> bucket = redissonClient.getBucket(cacheKey);
+            CacheEntry entry = CacheEntry.parse(bucket.get());
+            if (entry == null || entry.isExpired()) {
+                write(bucket, toEntry(selectById(articleId), ArticleIdFilter.Result.UNCHECKED));
+                nearCache.broadcastInvalidate(cacheKey);
+                log.info("异步刷新缓存 {} 成功", cacheKey);
+            }
+            staleRefresher.refreshed(cacheKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            unlock(lock, lockKey, lockedAt);
+        }
+    }
+
+    /**
+     * 释放当前线程持有的锁，锁已过期（不再被当前线程持有）时记为释放失败
+     */
+    private void unlock(RLock lock, String lockKey, long lockedAt) {
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+            log.info("线程 {} 释放分布式锁：{}", Thread.currentThread(), lockKey);
+        } else {
+            cacheMetrics.releaseFailed(CacheMetrics.Strategy.REDISSON);
+            log.warn("线程 {} 已不再持有分布式锁：{}", Thread.currentThread(), lockKey);
+        }
+        cacheMetrics.recordLockHold(CacheMetrics.Strategy.REDISSON, System.nanoTime() - lockedAt);
+    }
+
+    /**
+     * 计入访问排行（预热的热点来源），只记录确认存在或可能存在的文章，
+     * 随机 ID、遍历 ID 的请求不会进入本地计数和共享的排行
+     */
+    private void recordAccess(Long articleId, CacheEntry entry) {
+        if (!entry.isMissing()) {
+            accessRecorder.record(articleId);
+        }
+    }
+
+    /**
+     * 缓存未命中时，只有布隆过滤器实际判断可能存在才计入访问排行，过滤器不可用时不计入
+     */
+    private void recordAccess(Long articleId, ArticleIdFilter.Result filtered) {
+        if (filtered == ArticleIdFilter.Result.MAYBE_PRESENT) {
+            accessRecorder.record(articleId);
+        }
+    }
+
+    /**
+     * 把数据库查询结果包装成缓存条目，不存在的文章缓存一个短期的空值
+     *
+     * @param filtered 这次加载前布隆过滤器的查询结果，后台刷新没有查询过滤器，传 UNCHECKED
+     */
+    private CacheEntry toEntry(String queryResult, ArticleIdFilter.Result filtered) {
+        if (queryResult == null) {
+            articleIdFilter.recordFalsePositive(filtered); // 只有过滤器实际判断为可能存在时才是误判
+            return CacheEntry.missing(negativeTtl);
+        }
+        return CacheEntry.of(queryResult, softTtl);
+    }
+
+    /**
+     * 写入缓存，空值带较短的过期时间；过期时间按 TtlPolicies 中的策略浮动
+     */
+    private void write(RBucket<String> bucket, CacheEntry entry) {
+        bucket.set(entry.toJson(), expireMillis(bucket, entry), TimeUnit.MILLISECONDS);
+    }
+
+    private RFuture<Void> writeAsync(RBucket<String> bucket, CacheEntry entry) {
+        return bucket.setAsync(entry.toJson(), expireMillis(bucket, entry), TimeUnit.MILLISECONDS);
+    }
+
+    private long expireMillis(RBucket<String> bucket, CacheEntry entry) {
+        return ttlPolicies.jitteredMillis(bucket.getName(), entry.isMissing() ? negativeTtl : hardTtl, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 文章缓存的 key，和锁、fence 计数器带有相同的 hash tag，集群模式下落在同一个槽位
+     */
+    private String cacheKey(Long articleId) {
+        return ARTICLE_PREFIX + ClusterKeys.hashTag(ARTICLE_TAG, articleId);
+    }
+
+    private String lockKey(Long articleId) {
+        return LOCK_PREFIX + ClusterKeys.hashTag(ARTICLE_TAG, articleId);
+    }
+
+    private ApiResponse<String> toResponse(CacheEntry entry) {
+        return entry.isMissing() ? ApiResponse.error(404, "文章不存在") : ApiResponse.success(entry.getValue());
+    }
+
+    private String selectByIdUnchecked(Long articleId) {
+        try {
+            return selectById(articleId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
     private String selectById(Long articleId) throws InterruptedException {
         log.info("线程 {} 查询数据库...", Thread.currentThread());
-        long start = System.currentTimeMillis();
-        TimeUnit.SECONDS.sleep(35); // 休眠35秒
-        long duration = (System.currentTimeMillis() - start) / 1000;
-        System.out.println("查询数据库耗时: " + duration + "秒");
-        return "保持谦虚，保持学习，脚踏实地，不好高骛远，先完成，再优化。";
+        long start = System.nanoTime();
+        try {
+            TimeUnit.SECONDS.sleep(35); // 休眠35秒
+            if (articleId < 1 || articleId > maxArticleId) {
+                return null; // 模拟文章不存在
+            }
+            return "保持谦虚，保持学习，脚踏实地，不好高骛远，先完成，再优化。";
+        } finally {
+            long duration = System.nanoTime() - start;
+            cacheMetrics.recordDbLoad(CacheMetrics.Strategy.REDISSON, duration);
+            log.info("查询数据库耗时: {}秒", TimeUnit.NANOSECONDS.toSeconds(duration));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,292 @@
+package com.github;
+
+import com.github.cache.AccessRecorder;
+import com.github.cache.CacheEntry;
+import com.github.cache.ClusterKeys;
+import com.github.cache.RedisClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动预热：把热点文章提前写入 ArticleController 使用的缓存，避免发布后第一波流量全部打到数据库
+ * 热点列表 = 配置中固定的文章 + 访问排行（{@link AccessRecorder}）中的前 topN 篇；
+ * 先批量 MGET 跳过已在缓存中的文章，剩下的按批查询数据库，再通过管道 SET NX 写入，批与批之间有限并行。
+ * 作为健康检查项加入 readiness 分组，覆盖率达到阈值之前报告 OUT_OF_SERVICE，负载均衡不会把流量转发过来；
+ * 超过 timeout、预热失败或完成后覆盖率仍不足时，按 retryInterval 起指数退避（最长 retryMaxInterval）重新预热，
+ * 每次重新读取热点列表并 MGET 统计覆盖率，数据库 / Redis 恢复后覆盖率达到阈值即转为 UP，不需要重启；
+ * 重试期间保持 OUT_OF_SERVICE，details 中给出上一次的原因，不会把缓存是冷的节点报告为就绪
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArticleWarmUp implements HealthIndicator {
+
+    @Value("${cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.warmup.articleIds:}")
+    private List<Long> configuredIds; // 固定预热的文章
+
+    @Value("${cache.warmup.topN:200}")
+    private int topN; // 额外预热访问排行中的前 topN 篇
+
+    @Value("${cache.warmup.batchSize:50}")
+    private int batchSize; // 每批查询数据库和写入缓存的数量
+
+    @Value("${cache.warmup.parallelism:4}")
+    private int parallelism; // 同时执行的批数，限制预热对数据库的压力
+
+    @Value("${cache.warmup.coverageThreshold:0.9}")
+    private double coverageThreshold; // 热点文章在缓存中的比例达到多少后报告就绪
+
+    @Value("${cache.warmup.timeout:120}")
+    private long timeout; // 每次预热最长等待时间(秒)
+
+    @Value("${cache.warmup.retryInterval:5}")
+    private long retryInterval; // 覆盖率不足时第一次重试的间隔(秒)，之后每次翻倍
+
+    @Value("${cache.warmup.retryMaxInterval:60}")
+    private long retryMaxInterval; // 重试间隔的上限(秒)
+
+    @Value("${prefix.article:article_}")
+    private String ARTICLE_PREFIX;
+
+    @Value("${cache.article.softTtl:600}")
+    private long softTtl;
+
+    @Value("${cache.article.hardTtl:3600}")
+    private long hardTtl;
+
+    @Value("${article.maxId:1000}")
+    private long maxArticleId; // 模拟数据库中存在的文章 ID 范围 [1, maxId]
+
+    private final RedisClient redisClient;
+    private final AccessRecorder accessRecorder;
+
+    private volatile Progress progress = new Progress(); // 最近一次预热的进度，每次重试重新统计
+    private volatile boolean finished; // 最近一次预热已结束
+    private volatile boolean timedOut;
+    private volatile String failure; // 预热失败的原因
+    private volatile long startedAt;
+    private volatile long elapsedMillis;
+    private volatile int attempts;
+
+    private ScheduledExecutorService scheduler; // 执行预热和重试
+    private ExecutorService executor; // 执行各批的查询和写入
+
+    /**
+     * 上下文刷新完成后在后台开始预热，不阻塞启动；就绪状态由健康检查控制
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "article-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "article-warmup-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::warmUp);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmUp() {
+        attempts++;
+        startedAt = System.currentTimeMillis();
+        timedOut = false;
+        failure = null;
+        Progress progress = new Progress(); // 超时后仍在执行的上一轮批次只会更新上一轮的进度
+        this.progress = progress;
+        finished = false;
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            List<Long> articleIds = hotArticleIds();
+            progress.total = articleIds.size();
+            log.info("开始第 {} 次预热 {} 篇热点文章，batchSize={}，parallelism={}", attempts, progress.total, batchSize, parallelism);
+
+            for (int from = 0; from < articleIds.size(); from += batchSize) {
+                List<Long> batch = articleIds.subList(from, Math.min(from + batchSize, articleIds.size()));
+                futures.add(CompletableFuture.runAsync(() -> warmUpBatch(batch, progress), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeout, TimeUnit.SECONDS);
+            log.info("预热完成：{}/{} 篇在缓存中，耗时 {}ms", progress.covered.get(), progress.total, System.currentTimeMillis() - startedAt);
+        } catch (TimeoutException e) {
+            timedOut = true;
+            futures.forEach(future -> future.cancel(false)); // 还没开始的批次不再执行，避免和下一次重试一起占用数据库
+            log.warn("预热超过 {} 秒未完成，放弃等待：{}/{} 篇在缓存中", timeout, progress.covered.get(), progress.total);
+        } catch (InterruptedException e) {
+            failure = "interrupted";
+            Thread.currentThread().interrupt();
+            return; // 应用关闭，不再重试
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            failure = cause.getClass().getName() + ": " + cause.getMessage();
+            log.warn("预热失败：{}/{} 篇在缓存中", progress.covered.get(), progress.total, e);
+        } finally {
+            elapsedMillis = System.currentTimeMillis() - startedAt;
+            finished = true;
+        }
+        if (coverage(progress) < coverageThreshold) {
+            scheduleRetry();
+        }
+    }
+
+    /**
+     * 按 retryInterval * 2^(attempts-1) 退避，不超过 retryMaxInterval
+     */
+    private void scheduleRetry() {
+        long delay = Math.min(retryInterval << Math.min(attempts - 1, 30), retryMaxInterval);
+        log.warn("预热后覆盖率仍低于 {}，{} 秒后第 {} 次重试", coverageThreshold, delay, attempts + 1);
+        try {
+            scheduler.schedule(this::warmUp, delay, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            log.info("应用正在关闭，不再重试预热");
+        }
+    }
+
+    /**
+     * 固定配置的文章在前，访问排行在后，去重并保持顺序
+     */
+    private List<Long> hotArticleIds() {
+        Set<Long> articleIds = new LinkedHashSet<>(configuredIds);
+        try {
+            articleIds.addAll(accessRecorder.top(topN));
+        } catch (Exception e) {
+            log.warn("读取访问排行失败，只预热配置中的文章", e);
+        }
+        return new ArrayList<>(articleIds);
+    }
+
+    private void warmUpBatch(List<Long> batch, Progress progress) {
+        List<String> cacheKeys = new ArrayList<>(batch.size());
+        for (Long articleId : batch) {
+            cacheKeys.add(cacheKey(articleId));
+        }
+
+        // 已经在缓存中的不再查询数据库
+        List<String> cached = redisClient.multiGet(cacheKeys);
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (cached.get(i) == null) {
+                missing.add(batch.get(i));
+            }
+        }
+        progress.covered.addAndGet(batch.size() - missing.size());
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> rows = selectByIds(missing);
+        Map<String, String> kvs = new LinkedHashMap<>();
+        rows.forEach((articleId, content) -> kvs.put(cacheKey(articleId), CacheEntry.of(content, softTtl).toJson()));
+        progress.absent.addAndGet(missing.size() - rows.size()); // 数据库中不存在的文章由布隆过滤器拦截，不需要预热
+        progress.covered.addAndGet(redisClient.multiSetIfAbsentWithExpire(kvs, hardTtl)); // 只统计实际写入的，SET NX 没写入的下次 MGET 时再计入
+    }
+
+    private String cacheKey(Long articleId) {
+        return ARTICLE_PREFIX + ClusterKeys.hashTag(ArticleController.ARTICLE_TAG, articleId);
+    }
+
+    /**
+     * 模拟按 ID 批量查询数据库，一批只查询一次
+     */
+    private Map<Long, String> selectByIds(List<Long> articleIds) {
+        try {
+            Thread.sleep(50); // 模拟数据库查询延迟
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("预热被中断", e);
+        }
+        Map<Long, String> rows = new LinkedHashMap<>();
+        for (Long articleId : articleIds) {
+            if (articleId >= 1 && articleId <= maxArticleId) { // 模拟文章不存在
+                rows.put(articleId, "保持谦虚，保持学习，脚踏实地，不好高骛远，先完成，再优化。");
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 覆盖率 = covered / (total - absent)，数据库中不存在的文章不计入
+     */
+    private double coverage(Progress progress) {
+        int existing = progress.total - progress.absent.get();
+        return existing <= 0 ? (finished ? 1.0 : 0.0) : (double) progress.covered.get() / existing;
+    }
+
+    /**
+     * 最近一次预热的覆盖率达到阈值时报告 UP，其余情况（包括预热超时、失败后等待重试）报告 OUT_OF_SERVICE
+     */
+    @Override
+    public Health health() {
+        Progress progress = this.progress;
+        double coverage = coverage(progress);
+        boolean ready = !enabled || coverage >= coverageThreshold;
+
+        Health.Builder builder = ready ? Health.up() : Health.outOfService();
+        if (!ready && finished) {
+            builder.withDetail("reason", (timedOut ? "预热超过 " + timeout + " 秒未完成"
+                    : failure != null ? "预热失败：" + failure : "覆盖率低于阈值") + "，等待重试");
+        }
+        return builder
+                .withDetail("enabled", enabled)
+                .withDetail("attempts", attempts)
+                .withDetail("finished", finished)
+                .withDetail("timedOut", timedOut)
+                .withDetail("total", progress.total)
+                .withDetail("covered", progress.covered.get())
+                .withDetail("absent", progress.absent.get())
+                .withDetail("coverage", coverage)
+                .withDetail("threshold", coverageThreshold)
+                .withDetail("elapsedMillis", finished || startedAt == 0 ? elapsedMillis : System.currentTimeMillis() - startedAt)
+                .build();
+    }
+
+    /**
+     * 一次预热的进度
+     */
+    private static final class Progress {
+
+        volatile int total; // 热点文章数
+        final AtomicInteger covered = new AtomicInteger(); // 已在缓存中或本次实际写入的文章数
+        final AtomicInteger absent = new AtomicInteger(); // 数据库中不存在的文章数，由布隆过滤器拦截，不计入覆盖率
+    }
+}
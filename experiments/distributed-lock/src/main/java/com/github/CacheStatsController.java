@@ -0,0 +1,64 @@
+package com.github;
+
+import com.github.bean.ApiResponse;
+import com.github.cache.ArticleIdFilter;
+import com.github.cache.HotKeyDetector;
+import com.github.cache.LockWatchDog;
+import com.github.cache.NearCache;
+import com.github.cache.RedisCircuitBreaker;
+import com.github.cache.TtlPolicies;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/cache/api/")
+public class CacheStatsController {
+
+    private final NearCache nearCache;
+    private final LockWatchDog lockWatchDog;
+    private final ArticleIdFilter articleIdFilter;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final HotKeyDetector hotKeyDetector;
+    private final TtlPolicies ttlPolicies;
+
+    @GetMapping("/nearCache")
+    public ApiResponse<Map<String, Object>> nearCache() {
+        return ApiResponse.success(nearCache.stats());
+    }
+
+    @GetMapping("/watchdog")
+    public ApiResponse<Map<String, Object>> watchdog() {
+        return ApiResponse.success(lockWatchDog.stats());
+    }
+
+    @GetMapping("/bloom")
+    public ApiResponse<Map<String, Object>> bloom() {
+        return ApiResponse.success(articleIdFilter.stats());
+    }
+
+    @GetMapping("/breaker")
+    public ApiResponse<Map<String, Object>> breaker() {
+        return ApiResponse.success(redisCircuitBreaker.stats());
+    }
+
+    @GetMapping("/hotKeys")
+    public ApiResponse<Map<String, Object>> hotKeys() {
+        return ApiResponse.success(hotKeyDetector.stats());
+    }
+
+    @GetMapping("/ttl")
+    public ApiResponse<Map<String, Object>> ttl() {
+        return ApiResponse.success(ttlPolicies.stats());
+    }
+
+    @PostMapping("/bloom/rebuild")
+    public ApiResponse<Boolean> rebuildBloom() {
+        return ApiResponse.success(articleIdFilter.rebuild());
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录文章的访问次数，作为启动预热的热点列表来源
+ * 请求线程只在本地累加，后台定期把增量通过管道 ZINCRBY 合并到 Redis 的有序集合中，各节点共享同一份排行；
+ * 每次合并后只保留访问次数最多的 maxTracked 个，有序集合不会无限增长
+ */
+@Slf4j
+@Component
+public class AccessRecorder {
+
+    private static final String ACCESS_KEY = "article_access"; // 访问次数排行的有序集合
+
+    @Value("${prefix.demo}")
+    private String DEMO_FIX;
+
+    @Value("${cache.access.flushInterval:10}")
+    private long flushInterval; // 合并到 Redis 的周期(秒)
+
+    @Value("${cache.access.maxTracked:10000}")
+    private int maxTracked; // 排行中最多保留的文章数
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisCircuitBreaker circuitBreaker;
+
+    private volatile ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>(); // 尚未合并的增量
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "access-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    /**
+     * 记录一次访问
+     */
+    public void record(Long articleId) {
+        pending.computeIfAbsent(articleId, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param n 数量
+     * @return 访问次数最多的 n 篇文章，按访问次数从高到低排列
+     */
+    public List<Long> top(int n) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> members = circuitBreaker.execute(() ->
+                stringRedisTemplate.opsForZSet().reverseRange(DEMO_FIX + ACCESS_KEY, 0, n - 1));
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        List<Long> articleIds = new ArrayList<>(members.size());
+        for (String member : members) {
+            articleIds.add(Long.valueOf(member));
+        }
+        return articleIds;
+    }
+
+    /**
+     * 把本地增量合并到 Redis，失败时丢弃这一批，访问排行只需要近似值
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, LongAdder> snapshot = pending;
+        pending = new ConcurrentHashMap<>();
+        String key = DEMO_FIX + ACCESS_KEY;
+        try {
+            circuitBreaker.execute(() -> stringRedisTemplate.executePipelined((RedisCallback<Void>) connection -> {
+                StringRedisConnection con = (StringRedisConnection) connection;
+                snapshot.forEach((articleId, count) -> con.zIncrBy(key, count.sum(), String.valueOf(articleId)));
+                con.zRemRange(key, 0, -maxTracked - 1); // 只保留访问次数最多的 maxTracked 个
+                return null;
+            }));
+        } catch (Exception e) {
+            log.warn("合并访问次数失败，丢弃 {} 篇文章的增量", snapshot.size(), e);
+        }
+    }
+}
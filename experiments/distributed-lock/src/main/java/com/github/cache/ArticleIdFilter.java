@@ -0,0 +1,269 @@
+package com.github.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * 合法文章 ID 的布隆过滤器（基于 Redisson 的 RBloomFilter，存储在 Redis 中）
+ * 在加锁和查询数据库之前拦截不存在的 ID，防止缓存穿透。
+ * 重建时写入一个新版本的过滤器，写完后再切换指针，重建期间继续使用旧版本；
+ * 各节点定期读取指针，感知其它节点完成的重建。
+ * 当前版本的 Redisson 没有 containsAsync，异步接口通过 {@link #checkAsync} 在独立的小线程池中查询，
+ * 不能在 Redisson / Lettuce 的 IO 线程上直接调用同步的 {@link #check}。
+ * 同样没有批量的 add，重建时每个 ID 一次往返，由后台线程执行，不影响请求。
+ */
+@Slf4j
+@Component
+public class ArticleIdFilter {
+
+    private static final String ACTIVE_POINTER = "article_bloom_active";
+    private static final String FILTER_PREFIX = "article_bloom_";
+
+    /**
+     * 一次查询的结果
+     */
+    public enum Result {
+        /**
+         * 过滤器判断一定不存在
+         */
+        ABSENT,
+        /**
+         * 过滤器判断可能存在，数据库查不到时计为一次误判
+         */
+        MAYBE_PRESENT,
+        /**
+         * 过滤器不可用（未就绪或查询异常），直接放行，不参与误判统计
+         */
+        UNCHECKED
+    }
+
+    @Value("${cache.bloom.expectedInsertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${cache.bloom.falseProbability:0.01}")
+    private double falseProbability;
+
+    @Value("${cache.bloom.progressInterval:1000}")
+    private int progressInterval; // 重建时每写入这么多个 ID 记录一次进度，只影响日志
+
+    @Value("${cache.bloom.refreshInterval:30}")
+    private long refreshInterval; // 重新读取指针的周期(秒)
+
+    @Value("${cache.bloom.checkThreads:4}")
+    private int checkThreads; // 异步查询使用的线程数
+
+    @Value("${article.maxId:1000}")
+    private long maxArticleId; // 模拟数据库中存在的文章 ID 范围 [1, maxId]
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    private volatile RBloomFilter<Long> activeFilter; // 为 null 时表示过滤器还不可用，全部放行
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "article-bloom");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExecutorService checkExecutor; // checkAsync 使用，避免在 IO 线程上调用同步的 contains
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        checkExecutor = Executors.newFixedThreadPool(checkThreads, r -> {
+            Thread thread = new Thread(r, "article-bloom-check-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            try {
+                if (!refreshActiveFilter()) {
+                    log.info("布隆过滤器不存在，开始初始化");
+                    rebuildNow();
+                }
+            } catch (Exception e) {
+                log.warn("布隆过滤器初始化失败，暂时放行所有请求", e);
+            }
+        });
+        executor.scheduleWithFixedDelay(this::refreshActiveFilter, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        checkExecutor.shutdownNow();
+    }
+
+    /**
+     * 判断文章 ID 是否可能存在，同步访问 Redis，只能在业务线程上调用
+     *
+     * @return ABSENT 表示一定不存在；过滤器不可用时返回 UNCHECKED
+     */
+    public Result check(Long articleId) {
+        RBloomFilter<Long> filter = activeFilter;
+        if (filter == null) {
+            return Result.UNCHECKED;
+        }
+        checks.increment();
+        try {
+            if (!filter.contains(articleId)) {
+                rejected.increment();
+                return Result.ABSENT;
+            }
+            return Result.MAYBE_PRESENT;
+        } catch (Exception e) {
+            log.warn("布隆过滤器查询异常，放行请求", e);
+            return Result.UNCHECKED;
+        }
+    }
+
+    /**
+     * check 的异步版本，在 checkExecutor 中执行，可以在 IO 线程的回调中组合
+     */
+    public CompletableFuture<Result> checkAsync(Long articleId) {
+        if (activeFilter == null) {
+            return CompletableFuture.completedFuture(Result.UNCHECKED);
+        }
+        return CompletableFuture.supplyAsync(() -> check(articleId), checkExecutor);
+    }
+
+    /**
+     * 数据库中不存在时调用，只有过滤器实际查询过并判断可能存在（MAYBE_PRESENT）才记为一次误判，用于统计实际误判率
+     *
+     * @param result 这次请求的 check 结果，没有查询过滤器（刷新、降级等）时为 UNCHECKED
+     */
+    public void recordFalsePositive(Result result) {
+        if (result == Result.MAYBE_PRESENT) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * 在后台重建过滤器
+     *
+     * @return 已经有重建任务在执行时返回 false
+     */
+    public boolean rebuild() {
+        if (rebuilding.get()) {
+            return false;
+        }
+        executor.execute(this::rebuildNow);
+        return true;
+    }
+
+    private void rebuildNow() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            String name = FILTER_PREFIX + System.currentTimeMillis();
+            RBloomFilter<Long> filter = redissonClient.getBloomFilter(name, LongCodec.INSTANCE);
+            filter.tryInit(expectedInsertions, falseProbability);
+
+            long[] added = {0};
+            loadArticleIds(id -> {
+                filter.add(id);
+                if (++added[0] % progressInterval == 0) {
+                    log.info("布隆过滤器 {} 已写入 {} 个 ID", name, added[0]);
+                }
+            });
+
+            // 写完后再切换指针，旧版本保留一段时间，等其它节点切换完成后自动过期
+            RBucket<String> pointer = redissonClient.getBucket(ACTIVE_POINTER, StringCodec.INSTANCE);
+            String previous = pointer.getAndSet(name);
+            if (previous != null && !previous.equals(name)) {
+                redissonClient.getBloomFilter(previous, LongCodec.INSTANCE).expire(refreshInterval * 10, TimeUnit.SECONDS);
+            }
+            activeFilter = filter;
+            log.info("布隆过滤器重建完成：{}，共 {} 个 ID", name, added[0]);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 读取指针，切换到最新版本的过滤器
+     *
+     * @return 指针不存在时返回 false
+     */
+    private boolean refreshActiveFilter() {
+        try {
+            String name = redissonClient.<String>getBucket(ACTIVE_POINTER, StringCodec.INSTANCE).get();
+            if (name == null) {
+                return false;
+            }
+            RBloomFilter<Long> current = activeFilter;
+            if (current == null || !current.getName().equals(name)) {
+                activeFilter = redissonClient.getBloomFilter(name, LongCodec.INSTANCE);
+                log.info("切换到布隆过滤器：{}", name);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("读取布隆过滤器指针失败", e);
+            return activeFilter != null;
+        }
+    }
+
+    /**
+     * 模拟从数据库中分批读取所有文章 ID
+     */
+    private void loadArticleIds(LongConsumer consumer) {
+        LongStream.rangeClosed(1, maxArticleId).forEach(consumer);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        RBloomFilter<Long> filter = activeFilter;
+        stats.put("ready", filter != null);
+        stats.put("rebuilding", rebuilding.get());
+        stats.put("checks", checks.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        long passedNonExistent = falsePositives.sum() + rejected.sum();
+        stats.put("observedFalsePositiveRate", passedNonExistent == 0 ? 0D : (double) falsePositives.sum() / passedNonExistent);
+        if (filter != null) {
+            try {
+                long bits = filter.getSize();
+                int hashes = filter.getHashIterations();
+                long count = filter.count();
+                stats.put("name", filter.getName());
+                stats.put("count", count);
+                stats.put("configuredFalsePositiveRate", filter.getFalseProbability());
+                // (1 - e^(-k * n / m))^k
+                stats.put("estimatedFalsePositiveRate", Math.pow(1 - Math.exp(-(double) hashes * count / bits), hashes));
+            } catch (Exception e) {
+                log.warn("读取布隆过滤器信息失败", e);
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.cache;
+
+import cn.hutool.core.annotation.PropIgnore;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.Data;
+
+/**
+ * 带逻辑过期时间的缓存条目
+ * Redis 中的 key 本身不过期，过了逻辑过期时间后仍然返回旧值，由后台异步刷新
+ * value 为 null 的条目表示数据库中不存在（空值缓存），这类条目写入时带较短的 TTL
+ */
+@Data
+public class CacheEntry {
+
+    /**
+     * 缓存的值
+     */
+    private String value;
+
+    /**
+     * 逻辑过期时间（毫秒时间戳）
+     */
+    private long expireAt;
+
+    public static CacheEntry of(String value, long softTtlSeconds) {
+        CacheEntry entry = new CacheEntry();
+        entry.setValue(value);
+        entry.setExpireAt(System.currentTimeMillis() + softTtlSeconds * 1000);
+        return entry;
+    }
+
+    /**
+     * 数据库中不存在的空值条目
+     */
+    public static CacheEntry missing(long ttlSeconds) {
+        return of(null, ttlSeconds);
+    }
+
+    /**
+     * 解析缓存中的原始字符串，兼容没有逻辑过期时间的旧数据（视为已过期）
+     * 已逻辑过期的空值条目按未命中处理：不返回旧值，也不会触发后台刷新，
+     * 由布隆过滤器重新判断，不会为已知不存在的 ID 占用分布式锁和刷新许可去查询数据库
+     *
+     * @param raw 缓存中的原始字符串
+     * @return 缓存条目，raw 为 null 或空值条目已过期时返回 null
+     */
+    public static CacheEntry parse(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        if (JSONUtil.isTypeJSONObject(raw)) {
+            JSONObject json = JSONUtil.parseObj(raw);
+            if (json.containsKey("expireAt")) {
+                CacheEntry entry = json.toBean(CacheEntry.class);
+                return entry.isMissing() && entry.isExpired() ? null : entry;
+            }
+        }
+        CacheEntry entry = new CacheEntry();
+        entry.setValue(raw);
+        entry.setExpireAt(0);
+        return entry;
+    }
+
+    @PropIgnore
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expireAt;
+    }
+
+    @PropIgnore
+    public boolean isMissing() {
+        return value == null;
+    }
+
+    public String toJson() {
+        return JSONUtil.toJsonStr(this);
+    }
+}
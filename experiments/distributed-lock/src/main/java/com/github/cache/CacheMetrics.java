@@ -0,0 +1,174 @@
+package com.github.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 锁和缓存的监控指标，通过 Actuator 暴露（/actuator/metrics）
+ * 所有 Meter 在启动时按加锁方案注册好，记录时按下标取出直接累加，热点路径上不创建对象、不查找 Meter。
+ */
+@Component
+public class CacheMetrics {
+
+    /**
+     * 加锁方案，对应指标的 strategy 标签
+     */
+    public enum Strategy {
+        LUA("lua"), // ArticleController：Lua 脚本 + fencing token
+        REDISSON("redisson"); // ArticleController2：Redisson RLock
+
+        private final String tag;
+
+        Strategy(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+
+    private final Timer[] lockWait;
+    private final Timer[] lockHold;
+    private final Timer[] dbLoad;
+    private final Counter[] lockRetries;
+    private final Counter[] failedReleases;
+
+    private final ConcurrentHashMap<String, CacheCounter> cacheCounters = new ConcurrentHashMap<>();
+
+    @Resource
+    private NearCache nearCache;
+
+    @Resource
+    private LockWatchDog lockWatchDog;
+
+    @Resource
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+
+    @Resource
+    private TtlPolicies ttlPolicies;
+
+    public CacheMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Strategy[] strategies = Strategy.values();
+        lockWait = new Timer[strategies.length];
+        lockHold = new Timer[strategies.length];
+        dbLoad = new Timer[strategies.length];
+        lockRetries = new Counter[strategies.length];
+        failedReleases = new Counter[strategies.length];
+        for (Strategy strategy : strategies) {
+            int i = strategy.ordinal();
+            lockWait[i] = timer("cache.lock.wait", "从开始竞争到获取分布式锁的耗时", strategy);
+            lockHold[i] = timer("cache.lock.hold", "持有分布式锁的时间", strategy);
+            dbLoad[i] = timer("cache.db.load", "查询数据库的耗时", strategy);
+            lockRetries[i] = Counter.builder("cache.lock.retries")
+                    .description("获取分布式锁失败后的重试次数")
+                    .tag("strategy", strategy.tag)
+                    .register(registry);
+            failedReleases[i] = Counter.builder("cache.lock.release.failed")
+                    .description("释放锁失败的次数，包括锁已过期、被其他持有者获取和 Redis 异常")
+                    .tag("strategy", strategy.tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 绑定本地缓存、看门狗、熔断器和热点探测已有的统计
+     * 这几个组件依赖 Redis 连接，而 Lettuce 的指标又依赖 MeterRegistry，
+     * 所以不实现 MeterBinder，避免在 MeterRegistry 初始化时被提前创建形成循环依赖
+     */
+    @PostConstruct
+    public void bindComponents() {
+        nearCache.bindTo(registry);
+        lockWatchDog.bindTo(registry);
+        circuitBreaker.bindTo(registry);
+        hotKeyDetector.bindTo(registry);
+        ttlPolicies.bindTo(registry);
+    }
+
+    private Timer timer(String name, String description, Strategy strategy) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("strategy", strategy.tag)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    public void recordLockWait(Strategy strategy, long nanos) {
+        lockWait[strategy.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockHold(Strategy strategy, long nanos) {
+        lockHold[strategy.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDbLoad(Strategy strategy, long nanos) {
+        dbLoad[strategy.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lockRetry(Strategy strategy) {
+        lockRetries[strategy.ordinal()].increment();
+    }
+
+    public void releaseFailed(Strategy strategy) {
+        failedReleases[strategy.ordinal()].increment();
+    }
+
+    /**
+     * 获取某个缓存前缀的命中统计，调用方在初始化时取一次并保存，不要在热点路径上调用
+     *
+     * @param prefix 缓存 key 的前缀，作为 prefix 标签
+     */
+    public CacheCounter cacheCounter(String prefix) {
+        return cacheCounters.computeIfAbsent(prefix, p -> {
+            CacheCounter counter = new CacheCounter();
+            FunctionCounter.builder("cache.requests", counter.hits, LongAdder::sum)
+                    .description("缓存查询次数")
+                    .tags("prefix", p, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.requests", counter.misses, LongAdder::sum)
+                    .description("缓存查询次数")
+                    .tags("prefix", p, "result", "miss")
+                    .register(registry);
+            Gauge.builder("cache.hit.ratio", counter, CacheCounter::hitRatio)
+                    .description("缓存命中率")
+                    .tag("prefix", p)
+                    .register(registry);
+            return counter;
+        });
+    }
+
+    /**
+     * 单个缓存前缀的命中 / 未命中计数
+     */
+    public static class CacheCounter {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public void hit() {
+            hits.increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+
+        private double hitRatio() {
+            long hit = hits.sum();
+            long total = hit + misses.sum();
+            return total == 0 ? 0D : (double) hit / total;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.cache;
+
+import io.lettuce.core.cluster.SlotHash;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Redis Cluster 下的 key 布局
+ * 集群模式中一个 Lua 脚本的所有 KEYS 必须在同一个槽位，槽位只按 key 中第一个 {...} 里的内容计算，
+ * 所以同一篇文章的缓存、锁和 fence 计数器都带上相同的 hash tag，例如：
+ * <pre>
+ *     demo_article_{article:42}
+ *     demo_lock_{article:42}
+ *     demo_lock_{article:42}_fence
+ * </pre>
+ * 单机和哨兵模式下 hash tag 只是 key 的一部分，没有额外影响
+ */
+public final class ClusterKeys {
+
+    private ClusterKeys() {
+    }
+
+    /**
+     * @param group 业务分组，如 article
+     * @param id    业务 ID
+     * @return {group:id}
+     */
+    public static String hashTag(String group, Object id) {
+        return "{" + group + ":" + id + "}";
+    }
+
+    /**
+     * @param key 完整的 redis key
+     * @return key 所在的槽位，与 Redis Cluster 的计算方式一致（CRC16 % 16384）
+     */
+    public static int slot(String key) {
+        return SlotHash.getSlot(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
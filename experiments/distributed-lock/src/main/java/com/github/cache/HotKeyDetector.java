@@ -0,0 +1,264 @@
+package com.github.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点 key 探测
+ * 读 Redis 前按 1/sampleRate 的概率采样，采样到的 key 计入当前时间窗口的 Count-Min Sketch；
+ * 估算的访问速率超过阈值的 key 标记为热点，最多保留 topK 个，每个窗口结束时按上个窗口的速率重新评估，
+ * 速率降到阈值的一半以下时取消热点（留出余量，避免在阈值附近反复进出）。
+ * 热点 key 由 RedisClient 在本地保存一份短 TTL 的副本，所有节点不再集中访问同一个 Redis 分片。
+ */
+@Slf4j
+@Component
+public class HotKeyDetector {
+
+    private static final int DEPTH = 4; // Count-Min Sketch 的行数，每行一个独立的哈希
+
+    @Value("${cache.hotkey.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.hotkey.sampleRate:8}")
+    private int sampleRate; // 每 sampleRate 次访问采样 1 次
+
+    @Value("${cache.hotkey.sketchWidth:2048}")
+    private int width; // 每行的计数器数量，越大误差越小
+
+    @Value("${cache.hotkey.window:1000}")
+    private long windowMillis; // 统计窗口(毫秒)
+
+    @Value("${cache.hotkey.threshold:200}")
+    private long threshold; // 每秒访问次数超过这个值即为热点
+
+    @Value("${cache.hotkey.topK:32}")
+    private int topK; // 最多同时保留的热点数
+
+    @Value("${cache.hotkey.localTtl:2000}")
+    private long localTtl; // 热点 key 本地副本的过期时间(毫秒)
+
+    private volatile AtomicLongArray sketch; // 当前窗口的计数
+
+    private final ConcurrentHashMap<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "hot-key-detector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        sketch = new AtomicLongArray(DEPTH * width);
+        executor.scheduleAtFixedRate(this::rotate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        log.info("热点 key 探测：enabled={}，sampleRate={}，threshold={}/s，topK={}", enabled, sampleRate, threshold, topK);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 记录一次访问，未采样到时只有一次随机数的开销
+     *
+     * @param key Redis 中的完整 key
+     */
+    public void record(String key) {
+        if (!enabled || ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        long estimate = increment(sketch, key) * sampleRate;
+        if (estimate >= windowThreshold() && !hotKeys.containsKey(key)) {
+            promote(key, estimate);
+        }
+    }
+
+    /**
+     * @param key Redis 中的完整 key
+     * @return 是否为热点
+     */
+    public boolean isHot(String key) {
+        return enabled && hotKeys.containsKey(key);
+    }
+
+    /**
+     * 热点 key 本地副本的过期时间(毫秒)
+     */
+    public long localTtl() {
+        return localTtl;
+    }
+
+    /**
+     * 热点 key 由本地副本返回，记录一次
+     */
+    public void localHit() {
+        localHits.increment();
+    }
+
+    /**
+     * 加入热点，超过 topK 时替换掉速率最低的热点，新 key 的速率更低时放弃
+     */
+    private synchronized void promote(String key, long windowCount) {
+        if (hotKeys.containsKey(key)) {
+            return;
+        }
+        long rate = toRate(windowCount);
+        if (hotKeys.size() >= topK) {
+            HotKey coldest = hotKeys.values().stream().min(Comparator.comparingLong(hotKey -> hotKey.rate)).orElse(null);
+            if (coldest == null || coldest.rate >= rate) {
+                return;
+            }
+            hotKeys.remove(coldest.key);
+        }
+        hotKeys.put(key, new HotKey(key, rate, System.currentTimeMillis()));
+        promoted.increment();
+        log.info("发现热点 key：{}，约 {} 次/秒", key, rate);
+    }
+
+    /**
+     * 窗口结束：换一个新的 Sketch，用上个窗口的估算值更新热点的速率，速率过低的取消热点
+     */
+    private synchronized void rotate() {
+        try {
+            AtomicLongArray previous = sketch;
+            sketch = new AtomicLongArray(DEPTH * width);
+            for (HotKey hotKey : hotKeys.values()) {
+                long rate = toRate(estimate(previous, hotKey.key) * sampleRate);
+                if (rate < threshold / 2) {
+                    hotKeys.remove(hotKey.key);
+                    log.info("热点 key 已降温：{}，约 {} 次/秒", hotKey.key, rate);
+                } else {
+                    hotKey.rate = rate;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("热点 key 窗口切换异常", e);
+        }
+    }
+
+    private long windowThreshold() {
+        return threshold * windowMillis / 1000;
+    }
+
+    private long toRate(long windowCount) {
+        return windowCount * 1000 / windowMillis;
+    }
+
+    /**
+     * 每行各自的位置加一，返回各行中的最小值，即这个 key 在当前窗口的估算次数（只会偏大，不会偏小）
+     */
+    private long increment(AtomicLongArray counters, String key) {
+        int h1 = key.hashCode();
+        int h2 = spread(h1);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, counters.incrementAndGet(index(i, h1, h2)));
+        }
+        return min;
+    }
+
+    private long estimate(AtomicLongArray counters, String key) {
+        int h1 = key.hashCode();
+        int h2 = spread(h1);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, counters.get(index(i, h1, h2)));
+        }
+        return min;
+    }
+
+    /**
+     * 第 i 行的位置：用两个哈希组合出 DEPTH 个哈希（h1 + i * h2）
+     */
+    private int index(int row, int h1, int h2) {
+        return row * width + Math.floorMod(h1 + row * h2, width);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1; // 奇数，保证各行位置不同
+    }
+
+    /**
+     * 注册监控指标，由 {@link CacheMetrics} 在启动时调用
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.hotkey.count", hotKeys, Map::size)
+                .description("当前的热点 key 数量")
+                .register(registry);
+        FunctionCounter.builder("cache.hotkey.promoted", promoted, LongAdder::sum)
+                .description("被标记为热点的次数")
+                .register(registry);
+        FunctionCounter.builder("cache.hotkey.local.hits", localHits, LongAdder::sum)
+                .description("热点 key 由本地副本返回、没有访问 Redis 的次数")
+                .register(registry);
+    }
+
+    /**
+     * @return 当前的热点 key 及访问速率，按速率从高到低排列
+     */
+    public List<Map<String, Object>> hotKeys() {
+        List<HotKey> sorted = new ArrayList<>(hotKeys.values());
+        sorted.sort(Comparator.comparingLong((HotKey hotKey) -> hotKey.rate).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (HotKey hotKey : sorted) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("key", hotKey.key);
+            item.put("ratePerSecond", hotKey.rate);
+            item.put("hotSince", hotKey.since);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sampleRate", sampleRate);
+        stats.put("threshold", threshold);
+        stats.put("topK", topK);
+        stats.put("promoted", promoted.sum());
+        stats.put("localHits", localHits.sum());
+        stats.put("hotKeys", hotKeys());
+        return stats;
+    }
+
+    private static class HotKey {
+        private final String key;
+        private volatile long rate; // 最近一个窗口的访问速率(次/秒)
+        private final long since; // 成为热点的时间
+
+        HotKey(String key, long rate, long since) {
+            this.key = key;
+            this.rate = rate;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 锁释放通知
+ * 释放锁的脚本在删除成功后向该锁自己的频道发布消息，等待中的线程收到后立即重试，
+ * 不必固定睡眠；每个节点只订阅一次频道模式，再按锁分发给本地的等待者。
+ * 每个等待者有自己的 future，按频道登记在一个集合中：收到通知时整组唤醒，超时只移除自己，不影响同一把锁上的其他等待者。
+ */
+@Slf4j
+@Component
+public class LockReleaseNotifier {
+
+    /**
+     * 锁释放频道的前缀，完整频道为 前缀 + 锁的key
+     */
+    public static final String RELEASE_CHANNEL_PREFIX = "lock_release:";
+
+    @Value("${prefix.demo}")
+    private String DEMO_FIX;
+
+    @Resource
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ConcurrentHashMap<String, Set<CompletableFuture<Boolean>>> waiters = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lock-release-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+            Set<CompletableFuture<Boolean>> released = waiters.remove(channel);
+            if (released != null) {
+                released.forEach(waiter -> waiter.complete(true));
+            }
+        }, new PatternTopic(DEMO_FIX + RELEASE_CHANNEL_PREFIX + "*"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 等待锁被释放
+     *
+     * @param lockKey       锁的key
+     * @param timeoutMillis 最长等待时间，没有收到通知时兜底
+     * @return 收到释放通知返回 true；超时返回 false
+     */
+    public boolean await(String lockKey, long timeoutMillis) throws InterruptedException {
+        String channel = channel(lockKey);
+        CompletableFuture<Boolean> released = register(channel);
+        try {
+            return released.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.info("等待锁 {} 释放通知超时，{}ms 后重试", lockKey, timeoutMillis);
+            return false;
+        } finally {
+            // 锁可能是过期而不是被释放的，不会有通知，移除自己避免残留（已被通知时集合已经移除，这里是空操作）
+            unregister(channel, released);
+        }
+    }
+
+    /**
+     * 反复尝试获取，失败后等待释放通知再重试，直到成功或超时
+     *
+     * @param lockKey     锁的key
+     * @param waitMillis  最长等待时间
+     * @param pollMillis  单次等待通知的时间，锁或许可过期释放时没有通知，靠它兜底
+     * @param attempt     一次获取尝试
+     * @return 获取成功返回 true；超时返回 false
+     */
+    public boolean awaitUntil(String lockKey, long waitMillis, long pollMillis, BooleanSupplier attempt) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (!attempt.getAsBoolean()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            await(lockKey, Math.min(remaining, pollMillis));
+        }
+        return true;
+    }
+
+    /**
+     * await 的异步版本，不占用调用线程
+     *
+     * @param lockKey       锁的key
+     * @param timeoutMillis 最长等待时间，没有收到通知时兜底
+     * @return 收到释放通知时结果为 true；超时结果为 false
+     */
+    public CompletableFuture<Boolean> awaitAsync(String lockKey, long timeoutMillis) {
+        String channel = channel(lockKey);
+        CompletableFuture<Boolean> released = register(channel);
+        timer.schedule(() -> {
+            if (released.complete(false)) {
+                unregister(channel, released);
+                log.info("等待锁 {} 释放通知超时，{}ms 后重试", lockKey, timeoutMillis);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        return released;
+    }
+
+    /**
+     * 登记一个等待者，compute 在同一个频道上是原子的，不会和通知线程取走集合相互覆盖
+     */
+    private CompletableFuture<Boolean> register(String channel) {
+        CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+        waiters.compute(channel, (k, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(waiter);
+            return set;
+        });
+        return waiter;
+    }
+
+    /**
+     * 只移除这个等待者，集合为空时移除整个频道
+     */
+    private void unregister(String channel, CompletableFuture<Boolean> waiter) {
+        waiters.computeIfPresent(channel, (k, set) -> {
+            set.remove(waiter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 锁释放频道的完整名称
+     */
+    public String channel(String lockKey) {
+        return DEMO_FIX + RELEASE_CHANNEL_PREFIX + lockKey;
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 共享的锁看门狗
+ * 所有持有中的锁登记在同一个注册表里，每个周期用一次 Lua 脚本批量检查持有者并 PEXPIRE 续期，
+ * 不再为每把锁单独调度任务、单独发 ttl/get/expire 三次请求。
+ */
+@Slf4j
+@Component
+public class LockWatchDog {
+
+    @Value("${cache.watchdog.interval:10}")
+    private long interval; // 续约周期(秒)，需要小于锁持有时间的 1/3
+
+    @Value("${cache.watchdog.batchSize:500}")
+    private int batchSize; // 单次脚本最多续约的锁数量，避免脚本执行时间过长
+
+    @Resource
+    private RedisLuaUtil redisLuaUtil;
+
+    private final ConcurrentHashMap<String, HeldLock> heldLocks = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder renewed = new LongAdder();
+    private final LongAdder failedRenewals = new LongAdder(); // 锁已失效导致的续约失败
+    private final LongAdder renewErrors = new LongAdder(); // Redis 异常导致的续约失败
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    private volatile long nextTickAt;
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(interval);
+        nextTickAt = System.currentTimeMillis() + intervalMillis;
+        executor.scheduleAtFixedRate(this::renewAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("watchdog：启动，续约周期 {}s", interval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 登记一把持有中的锁，由看门狗负责续约
+     *
+     * @param lockKey   锁的key
+     * @param owner     锁的值
+     * @param leaseTime 每次续期的时间
+     * @param timeUnit  时间单位
+     */
+    public void watch(String lockKey, String owner, long leaseTime, TimeUnit timeUnit) {
+        heldLocks.put(lockKey, new HeldLock(owner, timeUnit.toMillis(leaseTime)));
+        log.info("watchdog：开始对锁 {} 进行续约", lockKey);
+    }
+
+    /**
+     * 取消续约，只有持有者一致时才移除
+     */
+    public void unwatch(String lockKey, String owner) {
+        HeldLock heldLock = heldLocks.get(lockKey);
+        if (heldLock != null && heldLock.owner.equals(owner) && heldLocks.remove(lockKey, heldLock)) {
+            log.info("watchdog：取消对锁 {} 的续约", lockKey);
+        }
+    }
+
+    private void renewAll() {
+        long now = System.currentTimeMillis();
+        long lag = Math.max(0, now - nextTickAt);
+        nextTickAt += TimeUnit.SECONDS.toMillis(interval);
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+
+        if (heldLocks.isEmpty()) {
+            return;
+        }
+
+        List<String> lockKeys = new ArrayList<>(heldLocks.keySet());
+        for (int from = 0; from < lockKeys.size(); from += batchSize) {
+            renewBatch(lockKeys.subList(from, Math.min(from + batchSize, lockKeys.size())));
+        }
+    }
+
+    private void renewBatch(List<String> lockKeys) {
+        List<String> keys = new ArrayList<>(lockKeys.size());
+        List<HeldLock> locks = new ArrayList<>(lockKeys.size());
+        for (String lockKey : lockKeys) {
+            HeldLock heldLock = heldLocks.get(lockKey);
+            if (heldLock != null) { // 快照之后可能已被取消
+                keys.add(lockKey);
+                locks.add(heldLock);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<String> owners = new ArrayList<>(keys.size());
+        List<Long> leaseMillis = new ArrayList<>(keys.size());
+        for (HeldLock heldLock : locks) {
+            owners.add(heldLock.owner);
+            leaseMillis.add(heldLock.leaseMillis);
+        }
+
+        try {
+            List<Boolean> results = redisLuaUtil.batchRenew(keys, owners, leaseMillis);
+            for (int i = 0; i < keys.size(); i++) {
+                if (results.get(i)) {
+                    renewed.increment();
+                } else {
+                    // 锁已过期或被其他持有者获取，不再续约
+                    failedRenewals.increment();
+                    heldLocks.remove(keys.get(i), locks.get(i));
+                    log.warn("watchdog：锁 {} 已失效，取消续约", keys.get(i));
+                }
+            }
+        } catch (Exception e) {
+            renewErrors.increment();
+            log.warn("watchdog：批量续约异常，下个周期重试", e);
+        }
+    }
+
+    /**
+     * 注册监控指标，由 {@link CacheMetrics} 在启动时调用
+     */
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, renewed, "renewed");
+        bindCounter(registry, failedRenewals, "failed");
+        bindCounter(registry, renewErrors, "error");
+        Gauge.builder("cache.watchdog.held", heldLocks, Map::size)
+                .description("看门狗正在续约的锁数量")
+                .register(registry);
+        Gauge.builder("cache.watchdog.lag", lastLagMillis, AtomicLong::get)
+                .description("最近一次续约相对计划时间的延迟")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private void bindCounter(MeterRegistry registry, LongAdder adder, String result) {
+        FunctionCounter.builder("cache.watchdog.renewals", adder, LongAdder::sum)
+                .description("看门狗续约次数，failed 表示锁已失效，error 表示 Redis 异常")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("heldLocks", heldLocks.size());
+        stats.put("renewed", renewed.sum());
+        stats.put("failedRenewals", failedRenewals.sum());
+        stats.put("renewErrors", renewErrors.sum());
+        stats.put("lastLagMillis", lastLagMillis.get());
+        stats.put("maxLagMillis", maxLagMillis.get());
+        return stats;
+    }
+
+    private static class HeldLock {
+        private final String owner;
+        private final long leaseMillis;
+
+        private HeldLock(String owner, long leaseMillis) {
+            this.owner = owner;
+            this.leaseMillis = leaseMillis;
+        }
+    }
+}
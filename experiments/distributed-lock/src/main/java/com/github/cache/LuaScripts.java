@@ -0,0 +1,192 @@
+package com.github.cache;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lua 脚本注册表
+ * 脚本只创建一次，SHA1 在创建时计算好，启动时通过 SCRIPT LOAD 预加载，执行时走 EVALSHA
+ */
+public final class LuaScripts {
+
+    private LuaScripts() {
+    }
+
+    /**
+     * 比较并删除，删除成功后发布锁释放通知
+     * KEYS[1] 锁的key；ARGV[1] 期望的值，ARGV[2] 锁释放频道
+     */
+    public static final RedisScript<Long> COMPARE_AND_DELETE = new DefaultRedisScript<>(
+            "local value = redis.call('get', KEYS[1]); " +
+                    "if value == ARGV[1] then " +
+                    "    local deleted = redis.call('del', KEYS[1]); " +
+                    "    redis.call('publish', ARGV[2], KEYS[1]); " +
+                    "    return deleted; " +
+                    "else " +
+                    "    return 0; " +
+                    "end",
+            Long.class);
+
+    /**
+     * 加锁并生成 fencing token
+     * KEYS[1] 锁的key，KEYS[2] fence 计数器的key；ARGV[1] 锁的持有时间(毫秒)
+     */
+    public static final RedisScript<Long> LOCK_WITH_FENCE = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then " +
+                    "    return 0; " +
+                    "end; " +
+                    "local token = redis.call('incr', KEYS[2]); " +
+                    "redis.call('set', KEYS[1], token, 'PX', ARGV[1]); " +
+                    "return token",
+            Long.class);
+
+    /**
+     * 根据 fencing token 条件写入缓存，并广播本地缓存失效
+     * KEYS[1] 缓存的key，KEYS[2] fence 计数器的key；
+     * ARGV[1] token，ARGV[2] 缓存的值，ARGV[3] 失效广播频道，ARGV[4] 过期时间(毫秒)，0 表示不过期
+     */
+    public static final RedisScript<Long> SET_IF_FENCE_VALID = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[2]) == ARGV[1] then " +
+                    "    if tonumber(ARGV[4]) > 0 then " +
+                    "        redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[4]); " +
+                    "    else " +
+                    "        redis.call('set', KEYS[1], ARGV[2]); " +
+                    "    end; " +
+                    "    redis.call('publish', ARGV[3], KEYS[1]); " +
+                    "    return 1; " +
+                    "end; " +
+                    "return 0",
+            Long.class);
+
+    /**
+     * 批量续约：逐个检查锁的持有者，仍是自己持有时 PEXPIRE 续期
+     * KEYS[i] 锁的key；ARGV[i] 持有者(锁的值)，ARGV[#KEYS + i] 续期时间(毫秒)
+     * 返回与 KEYS 一一对应的结果，1-续约成功；0-锁已失效
+     * 集群模式下所有 KEYS 必须在同一个槽位，由调用方按槽位分组
+     */
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> BATCH_RENEW = new DefaultRedisScript<>(
+            "local result = {}; " +
+                    "local n = #KEYS; " +
+                    "for i = 1, n do " +
+                    "    if redis.call('get', KEYS[i]) == ARGV[i] then " +
+                    "        redis.call('pexpire', KEYS[i], ARGV[n + i]); " +
+                    "        result[i] = 1; " +
+                    "    else " +
+                    "        result[i] = 0; " +
+                    "    end; " +
+                    "end; " +
+                    "return result",
+            List.class);
+
+    /**
+     * 获取信号量许可
+     * 用有序集合保存持有者，score 为租约到期时间，先清理已过期的持有者，再判断许可是否足够；已持有时只续期
+     * KEYS[1] 信号量的key；ARGV[1] 许可总数，ARGV[2] 持有者，ARGV[3] 租约时间(毫秒)
+     */
+    public static final RedisScript<Long> SEMAPHORE_ACQUIRE = new DefaultRedisScript<>(
+            "redis.replicate_commands(); " +
+                    "local time = redis.call('time'); " +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000); " +
+                    "redis.call('zremrangebyscore', KEYS[1], '-inf', now); " +
+                    "if redis.call('zscore', KEYS[1], ARGV[2]) or redis.call('zcard', KEYS[1]) < tonumber(ARGV[1]) then " +
+                    "    redis.call('zadd', KEYS[1], now + tonumber(ARGV[3]), ARGV[2]); " +
+                    "    if redis.call('pttl', KEYS[1]) < tonumber(ARGV[3]) then " +
+                    "        redis.call('pexpire', KEYS[1], ARGV[3]); " +
+                    "    end; " +
+                    "    return 1; " +
+                    "end; " +
+                    "return 0",
+            Long.class);
+
+    /**
+     * 释放信号量许可，释放成功后发布通知
+     * KEYS[1] 信号量的key；ARGV[1] 持有者，ARGV[2] 释放频道
+     */
+    public static final RedisScript<Long> SEMAPHORE_RELEASE = new DefaultRedisScript<>(
+            "if redis.call('zrem', KEYS[1], ARGV[1]) == 1 then " +
+                    "    redis.call('publish', ARGV[2], KEYS[1]); " +
+                    "    return 1; " +
+                    "end; " +
+                    "return 0",
+            Long.class);
+
+    /**
+     * 加读锁，可重入
+     * 用 hash 保存锁模式（mode 字段）和每个持有者的重入次数，写锁被持有时失败
+     * KEYS[1] 读写锁的key；ARGV[1] 持有者，ARGV[2] 租约时间(毫秒)
+     */
+    public static final RedisScript<Long> READ_LOCK = new DefaultRedisScript<>(
+            "local mode = redis.call('hget', KEYS[1], 'mode'); " +
+                    "if mode == 'write' then " +
+                    "    return 0; " +
+                    "end; " +
+                    "if not mode then " +
+                    "    redis.call('hset', KEYS[1], 'mode', 'read'); " +
+                    "end; " +
+                    "redis.call('hincrby', KEYS[1], ARGV[1], 1); " +
+                    "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then " +
+                    "    redis.call('pexpire', KEYS[1], ARGV[2]); " +
+                    "end; " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 加写锁，同一个持有者可重入，有任何读锁或其他写锁时失败
+     * KEYS[1] 读写锁的key；ARGV[1] 持有者，ARGV[2] 租约时间(毫秒)
+     */
+    public static final RedisScript<Long> WRITE_LOCK = new DefaultRedisScript<>(
+            "local mode = redis.call('hget', KEYS[1], 'mode'); " +
+                    "if not mode then " +
+                    "    redis.call('hset', KEYS[1], 'mode', 'write'); " +
+                    "    redis.call('hset', KEYS[1], ARGV[1], 1); " +
+                    "    redis.call('pexpire', KEYS[1], ARGV[2]); " +
+                    "    return 1; " +
+                    "end; " +
+                    "if mode == 'write' and redis.call('hexists', KEYS[1], ARGV[1]) == 1 then " +
+                    "    redis.call('hincrby', KEYS[1], ARGV[1], 1); " +
+                    "    redis.call('pexpire', KEYS[1], ARGV[2]); " +
+                    "    return 1; " +
+                    "end; " +
+                    "return 0",
+            Long.class);
+
+    /**
+     * 释放读锁或写锁，重入次数归零时移除持有者，没有持有者时删除锁并发布通知
+     * KEYS[1] 读写锁的key；ARGV[1] 持有者，ARGV[2] 释放频道
+     */
+    public static final RedisScript<Long> READ_WRITE_UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then " +
+                    "    return 0; " +
+                    "end; " +
+                    "if redis.call('hincrby', KEYS[1], ARGV[1], -1) <= 0 then " +
+                    "    redis.call('hdel', KEYS[1], ARGV[1]); " +
+                    "end; " +
+                    "if redis.call('hlen', KEYS[1]) <= 1 then " +
+                    "    redis.call('del', KEYS[1]); " +
+                    "    redis.call('publish', ARGV[2], KEYS[1]); " +
+                    "end; " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 所有需要在启动时预加载的脚本
+     */
+    public static List<RedisScript<?>> all() {
+        return Collections.unmodifiableList(Arrays.asList(
+                COMPARE_AND_DELETE,
+                LOCK_WITH_FENCE,
+                SET_IF_FENCE_VALID,
+                BATCH_RENEW,
+                SEMAPHORE_ACQUIRE,
+                SEMAPHORE_RELEASE,
+                READ_LOCK,
+                WRITE_LOCK,
+                READ_WRITE_UNLOCK
+        ));
+    }
+}
@@ -0,0 +1,222 @@
+package com.github.cache;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 二级缓存中的本地一级缓存（L1），Redis 作为二级缓存（L2）
+ * L1 按容量（LRU）和 TTL 淘汰；任意节点写入或删除 key 时通过 pub/sub 广播失效消息，各节点清除本地副本。
+ * 缓存的 key 统一使用 Redis 中的完整 key（包含前缀）。
+ * 读取 L2 和回填 L1 之间可能收到失效消息，回填时按失效版本号判断，版本变化说明读到的值可能已过时，不再回填。
+ */
+@Slf4j
+@Component
+public class NearCache {
+
+    /**
+     * 失效广播的频道，消息体为需要失效的完整 key
+     */
+    public static final String INVALIDATE_CHANNEL = "near_cache_invalidate";
+
+    private static final int VERSION_STRIPES = 1024; // 失效版本号按 key 的哈希分段，不为每个 key 单独保存，必须是 2 的幂
+
+    @Value("${prefix.demo}")
+    private String DEMO_FIX;
+
+    @Value("${cache.near.maxSize:10000}")
+    private int maxSize; // 本地缓存最大条目数
+
+    @Value("${cache.near.ttl:60}")
+    private long ttl; // 本地缓存过期时间(秒)
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer listenerContainer;
+
+    private LRUCache<String, String> localCache;
+
+    /**
+     * 每个分段的失效次数，同一分段的其他 key 失效时也会变化，只会多放弃几次回填，不会回填过时的值
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final LongAdder l1Hit = new LongAdder();
+    private final LongAdder l1Miss = new LongAdder();
+    private final LongAdder l2Hit = new LongAdder();
+    private final LongAdder l2Miss = new LongAdder();
+    private final LongAdder staleSkipped = new LongAdder(); // 读取期间收到失效消息，放弃回填的次数
+
+    @PostConstruct
+    public void init() {
+        localCache = CacheUtil.newLRUCache(maxSize, TimeUnit.SECONDS.toMillis(ttl));
+        listenerContainer.addMessageListener(
+                (message, pattern) -> invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel()));
+        log.info("NearCache 初始化完成，maxSize={}，ttl={}s", maxSize, ttl);
+    }
+
+    /**
+     * 先查本地缓存，未命中再通过 remote 查询 Redis，查到后回填本地缓存
+     *
+     * @param key    Redis 中的完整 key
+     * @param remote L2 查询逻辑
+     * @return value，不存在时返回 null
+     */
+    public String get(String key, Function<String, String> remote) {
+        // 不刷新最后访问时间，保证 TTL 是从写入本地开始计算的
+        String value = localCache.get(key, false);
+        if (value != null) {
+            l1Hit.increment();
+            return value;
+        }
+        l1Miss.increment();
+
+        long version = version(key); // 在读取 L2 之前取版本号
+        return onRemoteLoaded(key, version, remote.apply(key));
+    }
+
+    /**
+     * get 的异步版本，本地未命中时通过 remote 异步查询 Redis，不阻塞调用线程
+     *
+     * @param key    Redis 中的完整 key
+     * @param remote L2 异步查询逻辑
+     * @return value，不存在时结果为 null
+     */
+    public CompletableFuture<String> getAsync(String key, Function<String, CompletionStage<String>> remote) {
+        String value = localCache.get(key, false);
+        if (value != null) {
+            l1Hit.increment();
+            return CompletableFuture.completedFuture(value);
+        }
+        l1Miss.increment();
+
+        long version = version(key);
+        return remote.apply(key).toCompletableFuture().thenApply(v -> onRemoteLoaded(key, version, v));
+    }
+
+    /**
+     * 回填本地缓存；读取期间 key 被失效过时不回填，值仍然返回给这次调用
+     * put 之后再检查一次：失效消息可能在检查和 put 之间到达，此时把刚写入的值清除
+     *
+     * @param version 读取 L2 之前的失效版本号
+     */
+    private String onRemoteLoaded(String key, long version, String value) {
+        if (value == null) {
+            l2Miss.increment();
+            return null;
+        }
+        l2Hit.increment();
+        if (version(key) != version) {
+            staleSkipped.increment();
+            return value;
+        }
+        localCache.put(key, value);
+        if (version(key) != version) {
+            localCache.remove(key);
+            staleSkipped.increment();
+        }
+        return value;
+    }
+
+    private long version(String key) {
+        return versions.get(key.hashCode() & (VERSION_STRIPES - 1));
+    }
+
+    /**
+     * 只查本地缓存，不访问 Redis（Redis 熔断时使用）
+     */
+    public String getLocal(String key) {
+        return localCache.get(key, false);
+    }
+
+    /**
+     * 只写入本地缓存，不访问 Redis（Redis 熔断时使用），按本地 TTL 过期
+     */
+    public void putLocal(String key, String value) {
+        localCache.put(key, value);
+    }
+
+    /**
+     * 只写入本地缓存，使用指定的 TTL（热点 key 的短期副本），写入和删除时同样会被广播失效
+     */
+    public void putLocal(String key, String value, long ttlMillis) {
+        localCache.put(key, value, ttlMillis);
+    }
+
+    /**
+     * 只清除本节点的本地缓存
+     */
+    public void invalidate(String key) {
+        versions.incrementAndGet(key.hashCode() & (VERSION_STRIPES - 1)); // 先递增版本号，正在读取 L2 的线程不再回填
+        localCache.remove(key);
+    }
+
+    /**
+     * 清除本节点的本地缓存，并广播给其它节点
+     */
+    public void broadcastInvalidate(String key) {
+        invalidate(key);
+        stringRedisTemplate.convertAndSend(channel(), key);
+    }
+
+    /**
+     * 失效广播频道的完整名称
+     */
+    public String channel() {
+        return DEMO_FIX + INVALIDATE_CHANNEL;
+    }
+
+    /**
+     * 注册监控指标，由 {@link CacheMetrics} 在启动时调用
+     */
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, l1Hit, "l1", "hit");
+        bindCounter(registry, l1Miss, "l1", "miss");
+        bindCounter(registry, l2Hit, "l2", "hit");
+        bindCounter(registry, l2Miss, "l2", "miss");
+        Gauge.builder("cache.near.size", this, nearCache -> nearCache.localCache.size())
+                .description("本地缓存条目数")
+                .register(registry);
+    }
+
+    private void bindCounter(MeterRegistry registry, LongAdder adder, String level, String result) {
+        FunctionCounter.builder("cache.near.requests", adder, LongAdder::sum)
+                .description("二级缓存各级的命中次数")
+                .tags("level", level, "result", result)
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", localCache.size());
+        stats.put("l1Hit", l1Hit.sum());
+        stats.put("l1Miss", l1Miss.sum());
+        stats.put("l2Hit", l2Hit.sum());
+        stats.put("l2Miss", l2Miss.sum());
+        stats.put("staleSkipped", staleSkipped.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,290 @@
+package com.github.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Redis 命令的熔断器
+ * 按最近 windowSize 次调用统计异常率和慢调用率，任一超过阈值时打开熔断，熔断期间直接抛出 {@link RedisUnavailableException}；
+ * 打开 openDuration 后进入半开状态，放行 halfOpenCalls 次试探调用，全部成功则关闭熔断，否则重新打开。
+ * 每条 Redis 命令都会经过这里，请求路径上不加锁：关闭状态只读取一次当前阶段，调用结果记录在原子的环形窗口中，
+ * 只有状态转换通过 CAS 替换阶段。
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${cache.breaker.windowSize:50}")
+    private int windowSize; // 统计窗口内的调用次数
+
+    @Value("${cache.breaker.minimumCalls:20}")
+    private int minimumCalls; // 窗口内调用次数少于该值时不计算比例
+
+    @Value("${cache.breaker.failureRateThreshold:50}")
+    private int failureRateThreshold; // 异常率阈值(%)
+
+    @Value("${cache.breaker.slowCallMillis:500}")
+    private long slowCallMillis; // 超过该耗时(毫秒)的调用记为慢调用
+
+    @Value("${cache.breaker.slowCallRateThreshold:80}")
+    private int slowCallRateThreshold; // 慢调用率阈值(%)
+
+    @Value("${cache.breaker.openDuration:10000}")
+    private long openDuration; // 熔断打开后多久进入半开状态(毫秒)
+
+    @Value("${cache.breaker.halfOpenCalls:5}")
+    private int halfOpenCalls; // 半开状态放行的试探调用次数
+
+    private static final int FAILED = 1;
+    private static final int SLOW = 2;
+
+    /**
+     * 当前阶段，状态转换时整体替换（CAS），请求路径上只读取这个引用，不加锁
+     */
+    private final AtomicReference<Phase> phase = new AtomicReference<>();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        phase.set(Phase.closed(windowSize));
+    }
+
+    /**
+     * 在熔断器保护下执行 Redis 命令
+     *
+     * @throws RedisUnavailableException 熔断打开时
+     */
+    public <T> T execute(Supplier<T> call) {
+        Phase current = acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onResult(current, System.nanoTime() - start, false);
+            return result;
+        } catch (RuntimeException e) {
+            onResult(current, System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    /**
+     * execute 的异步版本，在结果返回时记录耗时和是否异常
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        Phase current;
+        try {
+            current = acquirePermission();
+        } catch (RedisUnavailableException e) {
+            CompletableFuture<T> rejectedFuture = new CompletableFuture<>();
+            rejectedFuture.completeExceptionally(e);
+            return rejectedFuture;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onResult(current, System.nanoTime() - start, true);
+            throw e;
+        }
+        return future.whenComplete((result, e) -> onResult(current, System.nanoTime() - start, e != null));
+    }
+
+    /**
+     * 关闭状态只读取一次 phase 就返回；打开超过 openDuration 后由一个线程 CAS 进入半开状态
+     *
+     * @return 放行这次调用的阶段，结果记录到这个阶段
+     */
+    private Phase acquirePermission() {
+        Phase current = phase.get();
+        if (current.state == State.CLOSED) {
+            return current;
+        }
+        if (current.state == State.OPEN) {
+            if (System.currentTimeMillis() - current.since < openDuration) {
+                rejected.increment();
+                throw new RedisUnavailableException("Redis 熔断中，拒绝执行命令");
+            }
+            Phase halfOpen = Phase.halfOpen(halfOpenCalls);
+            if (phase.compareAndSet(current, halfOpen)) {
+                log.info("Redis 熔断进入半开状态，放行 {} 次试探调用", halfOpenCalls);
+            }
+            current = phase.get();
+            if (current.state == State.CLOSED) {
+                return current;
+            }
+            if (current.state == State.OPEN) {
+                rejected.increment();
+                throw new RedisUnavailableException("Redis 熔断中，拒绝执行命令");
+            }
+        }
+        if (current.permits.get() <= 0 || current.permits.getAndDecrement() <= 0) {
+            rejected.increment();
+            throw new RedisUnavailableException("Redis 熔断半开中，试探调用已满");
+        }
+        return current;
+    }
+
+    /**
+     * @param current 放行这次调用时的阶段，阶段已经切换时结果不再统计
+     */
+    private void onResult(Phase current, long elapsedNanos, boolean failed) {
+        boolean slow = elapsedNanos > TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        if (current.state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open(current, "半开状态试探调用" + (failed ? "异常" : "超时"));
+            } else if (current.succeeded.incrementAndGet() >= halfOpenCalls) {
+                if (phase.compareAndSet(current, Phase.closed(windowSize))) {
+                    log.info("Redis 熔断关闭，恢复正常调用");
+                }
+            }
+            return;
+        }
+        if (current.state != State.CLOSED || phase.get() != current) { // 打开前已经放行的调用，结果不再统计
+            return;
+        }
+
+        Window window = current.window;
+        int outcome = (failed ? FAILED : 0) | (slow ? SLOW : 0);
+        long recorded = window.record(outcome);
+        // 成功的调用不会让比例升高，只在异常、慢调用或窗口刚达到 minimumCalls 时计算比例
+        if (recorded < minimumCalls || (outcome == 0 && recorded != minimumCalls)) {
+            return;
+        }
+        long failedCalls = window.failedCalls.sum();
+        long slowCalls = window.slowCalls.sum();
+        if (failedCalls * 100 >= (long) failureRateThreshold * recorded) {
+            open(current, "异常率 " + failedCalls * 100 / recorded + "%");
+        } else if (slowCalls * 100 >= (long) slowCallRateThreshold * recorded) {
+            open(current, "慢调用率 " + slowCalls * 100 / recorded + "%");
+        }
+    }
+
+    /**
+     * 从 from 阶段打开熔断，并发时只有一个线程转换成功
+     */
+    private void open(Phase from, String reason) {
+        if (phase.compareAndSet(from, Phase.open(System.currentTimeMillis()))) {
+            opened.increment();
+            log.warn("Redis 熔断打开：{}，{}ms 后进入半开状态", reason, openDuration);
+        }
+    }
+
+    /**
+     * 注册监控指标，由 {@link CacheMetrics} 在启动时调用
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.breaker.state", this, breaker -> breaker.phase.get().state.ordinal())
+                .description("熔断器状态：0-关闭，1-打开，2-半开")
+                .register(registry);
+        FunctionCounter.builder("cache.breaker.opened", opened, LongAdder::sum)
+                .description("熔断打开次数")
+                .register(registry);
+        FunctionCounter.builder("cache.breaker.rejected", rejected, LongAdder::sum)
+                .description("熔断期间拒绝的 Redis 命令数")
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Phase current = phase.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", current.state);
+        stats.put("windowCalls", current.window == null ? 0 : current.window.recorded());
+        stats.put("failedCalls", current.window == null ? 0 : current.window.failedCalls.sum());
+        stats.put("slowCalls", current.window == null ? 0 : current.window.slowCalls.sum());
+        stats.put("opened", opened.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * 熔断器的一个阶段，创建后不再修改引用，转换状态时整体替换
+     */
+    private static final class Phase {
+
+        final State state;
+        final long since; // 进入这个阶段的时间(毫秒)，OPEN 时用于判断何时半开
+        final Window window; // CLOSED 时的统计窗口
+        final AtomicInteger permits; // HALF_OPEN 时剩余的试探调用次数
+        final AtomicInteger succeeded; // HALF_OPEN 时成功的试探调用次数
+
+        private Phase(State state, long since, Window window, int permits) {
+            this.state = state;
+            this.since = since;
+            this.window = window;
+            this.permits = new AtomicInteger(permits);
+            this.succeeded = new AtomicInteger();
+        }
+
+        static Phase closed(int windowSize) {
+            return new Phase(State.CLOSED, System.currentTimeMillis(), new Window(windowSize), 0);
+        }
+
+        static Phase open(long openedAt) {
+            return new Phase(State.OPEN, openedAt, null, 0);
+        }
+
+        static Phase halfOpen(int permits) {
+            return new Phase(State.HALF_OPEN, System.currentTimeMillis(), null, permits);
+        }
+    }
+
+    /**
+     * 最近 size 次调用的环形窗口，每个槽位保存一次调用的 FAILED / SLOW 标记
+     * 槽位通过 getAndSet 替换，被挤出的标记从计数中减去，多个线程同时记录时计数仍然准确，不需要加锁
+     */
+    private static final class Window {
+
+        private final AtomicIntegerArray slots;
+        private final AtomicLong calls = new AtomicLong();
+        final LongAdder failedCalls = new LongAdder();
+        final LongAdder slowCalls = new LongAdder();
+
+        Window(int size) {
+            slots = new AtomicIntegerArray(size);
+        }
+
+        /**
+         * @return 记录后窗口内的调用次数
+         */
+        long record(int outcome) {
+            long seq = calls.getAndIncrement();
+            int evicted = slots.getAndSet((int) (seq % slots.length()), outcome);
+            int failedDelta = (outcome & FAILED) - (evicted & FAILED);
+            int slowDelta = ((outcome & SLOW) - (evicted & SLOW)) >> 1;
+            if (failedDelta != 0) {
+                failedCalls.add(failedDelta);
+            }
+            if (slowDelta != 0) {
+                slowCalls.add(slowDelta);
+            }
+            return Math.min(seq + 1, slots.length());
+        }
+
+        long recorded() {
+            return Math.min(calls.get(), slots.length());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.cache;
 
-import cn.hutool.json.JSONUtil;
+import com.github.cache.serializer.ValueSerializer;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.RedisConnection;
@@ -8,13 +10,22 @@ import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Component
 public class RedisClient {
     private static final Charset CODE = StandardCharsets.UTF_8;
@@ -25,6 +36,21 @@ public class RedisClient {
     @Resource
     private  RedisTemplate<String, String> template;
 
+    @Resource
+    private NearCache nearCache;
+
+    @Resource
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Resource
+    private ValueSerializer valueSerializer;
+
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+
+    @Resource
+    private TtlPolicies ttlPolicies;
+
     public void register(RedisTemplate template) {
         this.template = template;
     }
@@ -43,15 +69,22 @@ public class RedisClient {
      * @return 字节数组
      */
     public byte[] keyBytes(String key) {
+        return fullKey(key).getBytes(CODE);
+    }
+
+    /**
+     * @param key redis key
+     * @return 加上前缀后的完整 key
+     */
+    public String fullKey(String key) {
         nullCheck(key);
-        key = DEMO_FIX + key;
-        return key.getBytes(CODE);
+        return DEMO_FIX + key;
     }
 
     /**
      *
      * @param val redis value
-     * @return 字节数组
+     * @return 字节数组，字符串按 UTF-8 编码，其他类型交给 {@link ValueSerializer}
      * @param <T> value的类型
      */
     public <T> byte[] valBytes(T val) {
@@ -60,11 +93,31 @@ public class RedisClient {
         if (val instanceof String) {
             return ((String) val).getBytes(CODE);
         } else {
-            return JSONUtil.toJsonStr(val).getBytes(CODE);
+            return valueSerializer.serialize(val);
         }
 
     }
 
+    /**
+     * valBytes 的逆过程
+     *
+     * @return 反序列化后的值；数据无法按当前类型读出（如类结构已变化）时返回 null，当作缓存未命中
+     */
+    private <T> T fromBytes(String key, byte[] valBytes, Class<T> type) {
+        if (valBytes == null) {
+            return null;
+        }
+        if (type == String.class) {
+            return type.cast(new String(valBytes, CODE));
+        }
+        try {
+            return valueSerializer.deserialize(valBytes, type);
+        } catch (SerializationException e) {
+            log.warn("缓存 {} 无法反序列化为 {}，当作未命中处理", key, type.getName(), e);
+            return null;
+        }
+    }
+
     /**
      *
      * 删除缓存
@@ -72,7 +125,11 @@ public class RedisClient {
      * @param key redis key
      */
     public void del(String key) {
-        template.execute((RedisCallback<Long>) con -> con.del(keyBytes(key)));
+        execute((RedisCallback<Long>) con -> {
+            Long result = con.del(keyBytes(key));
+            invalidateNear(con, key);
+            return result;
+        });
     }
 
     /**
@@ -83,31 +140,38 @@ public class RedisClient {
      * @param value value
      */
     public void stringSet(String key, String value) {
-        template.execute(
+        execute(
                 new RedisCallback<Void>() {
                     @Override
                     public Void doInRedis(RedisConnection connection) throws DataAccessException {
                         connection.set(keyBytes(key), valBytes(value));
+                        invalidateNear(connection, key);
                         return null;
                     }
                 }
         );
+        ttlPolicies.onWrite(key, fullKey(key));
     }
 
     /**
      *
-     * 设置一个带有过期时间的 k v
+     * 设置一个带有过期时间的 k v，过期时间按 {@link TtlPolicies} 中该前缀的策略浮动
      *
      * @param key key
      * @param value value
+     * @param expire 过期时间（秒）
      */
     public void stringSetWithExpire(String key, String value, Long expire) {
-        template.execute(
+        nullCheck(expire);
+        long expireMillis = ttlPolicies.jitteredMillis(key, expire, TimeUnit.SECONDS);
+        execute(
                 (RedisCallback<Void>) connection -> {
-                    connection.setEx(keyBytes(key), expire, valBytes(value));
+                    connection.pSetEx(keyBytes(key), expireMillis, valBytes(value));
+                    invalidateNear(connection, key);
                     return null;
                 }
         );
+        ttlPolicies.onWrite(key, fullKey(key));
     }
 
     /**
@@ -119,10 +183,16 @@ public class RedisClient {
      * @return 如果设置成功返回 true，如果 key 已存在则返回 false
      */
     public Boolean stringSetIfAbsentWithExpire(String key, String value, Long expire, TimeUnit timeUnit) {
-        return template.execute((RedisCallback<Boolean>) connection -> {
-            // 使用 Redis 的 set 命令，NX 表示仅在 key 不存在时设置，EX 表示设置过期时间（单位为秒）
-            return connection.set(keyBytes(key), valBytes(value), Expiration.from(expire, timeUnit), RedisStringCommands.SetOption.SET_IF_ABSENT);
+        nullCheck(expire, timeUnit);
+        long expireMillis = ttlPolicies.jitteredMillis(key, expire, timeUnit);
+        Boolean result = execute((RedisCallback<Boolean>) connection -> {
+            // 使用 Redis 的 set 命令，NX 表示仅在 key 不存在时设置，PX 表示设置过期时间（单位为毫秒）
+            return connection.set(keyBytes(key), valBytes(value), Expiration.milliseconds(expireMillis), RedisStringCommands.SetOption.SET_IF_ABSENT);
         });
+        if (Boolean.TRUE.equals(result)) {
+            ttlPolicies.onWrite(key, fullKey(key));
+        }
+        return result;
     }
 
 
@@ -134,15 +204,381 @@ public class RedisClient {
      * @return redis value
      */
     public String stringGet(String key) {
-        return template.execute((RedisCallback<String>) connection -> {
-            byte[] valBytes = connection.get(keyBytes(key));
-            return valBytes == null ? null : new String(valBytes);
+        return stringGet(key, null);
+    }
+
+    private String stringGet(String key, Runnable refreshEarly) {
+        String fullKey = fullKey(key);
+        String hotValue = hotLocalGet(fullKey);
+        if (hotValue != null) {
+            return hotValue;
+        }
+        byte[] valBytes = readBytes(key, refreshEarly);
+        String value = valBytes == null ? null : new String(valBytes, CODE);
+        hotLocalPut(fullKey, value);
+        return value;
+    }
+
+    /**
+     *
+     * 获取 k 的 value 并反序列化为指定类型，与 {@link #set} 配合使用
+     *
+     * @param key redis key
+     * @param type value 的类型
+     * @return redis value，不存在或无法反序列化时返回 null
+     */
+    public <T> T get(String key, Class<T> type) {
+        nullCheck(type);
+        return fromBytes(key, readBytes(key, null), type);
+    }
+
+    /**
+     *
+     * 设置一个 k v，非字符串的 value 通过 {@link ValueSerializer} 序列化
+     *
+     * @param key key
+     * @param value value
+     */
+    public <T> void set(String key, T value) {
+        byte[] valBytes = valBytes(value); // 在命令外序列化，不占用连接
+        execute((RedisCallback<Void>) connection -> {
+            connection.set(keyBytes(key), valBytes);
+            invalidateNear(connection, key);
+            return null;
+        });
+        ttlPolicies.onWrite(key, fullKey(key));
+    }
+
+    /**
+     *
+     * set 的带过期时间版本
+     *
+     * @param key key
+     * @param value value
+     * @param expire 过期时间（秒）
+     */
+    public <T> void setWithExpire(String key, T value, Long expire) {
+        nullCheck(expire);
+        byte[] valBytes = valBytes(value);
+        long expireMillis = ttlPolicies.jitteredMillis(key, expire, TimeUnit.SECONDS);
+        execute((RedisCallback<Void>) connection -> {
+            connection.pSetEx(keyBytes(key), expireMillis, valBytes);
+            invalidateNear(connection, key);
+            return null;
+        });
+        ttlPolicies.onWrite(key, fullKey(key));
+    }
+
+    /**
+     *
+     * 批量获取，一次 MGET 往返；集群模式下 key 分布在多个槽位时，由 Spring 按节点拆分后并行执行
+     *
+     * @param keys redis keys
+     * @return 与 keys 顺序一一对应的 value 列表，不存在的 key 对应 null
+     */
+    public List<String> multiGet(Collection<String> keys) {
+        nullCheck(keys);
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        byte[][] rawKeys = keys.stream().map(this::keyBytes).toArray(byte[][]::new);
+        return execute((RedisCallback<List<String>>) connection -> {
+            List<byte[]> rawValues = connection.mGet(rawKeys);
+            List<String> values = new ArrayList<>(rawKeys.length);
+            if (rawValues == null) {
+                rawValues = Collections.emptyList();
+            }
+            for (int i = 0; i < rawKeys.length; i++) {
+                byte[] valBytes = i < rawValues.size() ? rawValues.get(i) : null;
+                values.add(valBytes == null ? null : new String(valBytes, CODE));
+            }
+            return values;
+        });
+    }
+
+    /**
+     *
+     * 批量设置带有过期时间的 k v，通过管道把所有 SETEX 一次性发出
+     * 每个 key 的过期时间单独按策略浮动，同一批写入的 key 不会在同一时刻过期
+     *
+     * @param kvs key -> value
+     * @param expire 过期时间（秒）
+     */
+    public void multiSetWithExpire(Map<String, String> kvs, Long expire) {
+        nullCheck(kvs, expire);
+        if (kvs.isEmpty()) {
+            return;
+        }
+
+        executePipelined((RedisCallback<Void>) connection -> {
+            for (Map.Entry<String, String> kv : kvs.entrySet()) {
+                long expireMillis = ttlPolicies.jitteredMillis(kv.getKey(), expire, TimeUnit.SECONDS);
+                connection.pSetEx(keyBytes(kv.getKey()), expireMillis, valBytes(kv.getValue()));
+                invalidateNear(connection, kv.getKey());
+            }
+            return null;
         });
+        for (String key : kvs.keySet()) {
+            ttlPolicies.onWrite(key, fullKey(key));
+        }
     }
 
+    /**
+     *
+     * 批量设置不存在的带有过期时间的 k v（SET NX PX），通过管道一次性发出，已存在的 key 保持不变
+     * 用于预热等后台批量写入，不会覆盖其他线程刚写入的更新的值；过期时间与 multiSetWithExpire 一样逐个按策略浮动
+     *
+     * @param kvs key -> value
+     * @param expire 过期时间（秒）
+     * @return 实际写入的数量
+     */
+    public int multiSetIfAbsentWithExpire(Map<String, String> kvs, Long expire) {
+        nullCheck(kvs, expire);
+        if (kvs.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keys = new ArrayList<>(kvs.keySet());
+        List<Object> results = executePipelined((RedisCallback<Void>) connection -> {
+            for (Map.Entry<String, String> kv : kvs.entrySet()) {
+                long expireMillis = ttlPolicies.jitteredMillis(kv.getKey(), expire, TimeUnit.SECONDS);
+                connection.set(keyBytes(kv.getKey()), valBytes(kv.getValue()),
+                        Expiration.milliseconds(expireMillis), RedisStringCommands.SetOption.SET_IF_ABSENT);
+            }
+            return null;
+        });
+        int written = 0;
+        for (int i = 0; i < keys.size() && i < results.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                ttlPolicies.onWrite(keys.get(i), fullKey(keys.get(i)));
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     *
+     * 批量删除，通过管道把每个 key 的 DEL 一次性发出
+     * 不使用多 key 的 DEL，集群模式下多 key 命令要求所有 key 在同一个槽位
+     *
+     * @param keys redis keys
+     * @return 删除的 key 数量
+     */
+    public Long multiDel(Collection<String> keys) {
+        nullCheck(keys);
+        if (keys.isEmpty()) {
+            return 0L;
+        }
+
+        List<Object> results = executePipelined((RedisCallback<Void>) connection -> {
+            for (String key : keys) {
+                connection.del(keyBytes(key));
+            }
+            for (String key : keys) {
+                invalidateNear(connection, key);
+            }
+            return null;
+        });
+        long deleted = 0;
+        for (int i = 0; i < keys.size() && i < results.size(); i++) {
+            Object result = results.get(i);
+            deleted += result instanceof Long ? (Long) result : 0;
+        }
+        return deleted;
+    }
+
+    /**
+     *
+     * 通过本地一级缓存获取 k 的 value，本地未命中时再查询 Redis
+     * 适用于读多写少的数据，写入和删除会通过 pub/sub 让各节点的本地缓存失效
+     *
+     * @param key redis key
+     * @return redis value
+     */
+    public String stringGetWithNearCache(String key) {
+        return nearCache.get(fullKey(key), k -> stringGet(key, null));
+    }
+
+    /**
+     *
+     * stringGetWithNearCache 的提前刷新版本：从 Redis 读到的值按 {@link TtlPolicies#shouldRefreshEarly} 判断需要提前刷新时，
+     * 调用 refreshEarly 通知调用方在后台刷新，值照常返回，命中不会变成未命中
+     * 本地缓存和热点 key 副本的命中不检查剩余 TTL，它们的有效期很短，刷新写回后通过失效广播更新
+     *
+     * @param key          redis key
+     * @param refreshEarly 需要提前刷新时的回调，运行在读取线程上（异步读取时是 Lettuce 的 IO 线程），不能阻塞
+     * @return redis value
+     */
+    public String stringGetWithNearCache(String key, Runnable refreshEarly) {
+        return nearCache.get(fullKey(key), k -> stringGet(key, refreshEarly));
+    }
+
+    /**
+     *
+     * 异步获取 k 的 value，直接使用 Lettuce 的异步命令，不占用调用线程
+     *
+     * @param key redis key
+     * @return redis value
+     */
+    public CompletableFuture<String> stringGetAsync(String key) {
+        return stringGetAsync(key, null);
+    }
+
+    private CompletableFuture<String> stringGetAsync(String key, Runnable refreshEarly) {
+        String fullKey = fullKey(key);
+        String hotValue = hotLocalGet(fullKey);
+        if (hotValue != null) {
+            return CompletableFuture.completedFuture(hotValue);
+        }
+        return readBytesAsync(key, refreshEarly)
+                .thenApply(valBytes -> {
+                    String value = valBytes == null ? null : new String(valBytes, CODE);
+                    hotLocalPut(fullKey, value);
+                    return value;
+                });
+    }
+
+    /**
+     *
+     * stringGetWithNearCache 的异步版本
+     *
+     * @param key redis key
+     * @return redis value
+     */
+    public CompletableFuture<String> stringGetWithNearCacheAsync(String key) {
+        return nearCache.getAsync(fullKey(key), k -> stringGetAsync(key, null));
+    }
+
+    /**
+     *
+     * {@link #stringGetWithNearCache(String, Runnable)} 的异步版本
+     *
+     * @param key          redis key
+     * @param refreshEarly 需要提前刷新时的回调，运行在 Lettuce 的 IO 线程上，不能阻塞
+     * @return redis value
+     */
+    public CompletableFuture<String> stringGetWithNearCacheAsync(String key, Runnable refreshEarly) {
+        return nearCache.getAsync(fullKey(key), k -> stringGetAsync(key, refreshEarly));
+    }
+
+    /**
+     * Lettuce 原生的异步命令
+     * 连接工厂默认共享同一个原生连接，回调结束后连接不会关闭，返回的命令对象可以在回调外继续使用
+     * 注意：不要在异步回调中调用同步方法，回调运行在 Lettuce 的 IO 线程上
+     */
+    @SuppressWarnings("unchecked")
+    public RedisClusterAsyncCommands<byte[], byte[]> asyncCommands() {
+        return template.execute((RedisCallback<RedisClusterAsyncCommands<byte[], byte[]>>) connection ->
+                (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection());
+    }
+
+    /**
+     * 读取 value；调用方给出 refreshEarly 且前缀开启了提前刷新时带上 PTTL，
+     * 按 {@link TtlPolicies#shouldRefreshEarly} 决定是否调用 refreshEarly 提交后台刷新，读到的值照常返回
+     * 带 PTTL 的读取复用 {@link #readBytesAsync} 的共享连接，不走管道（executePipelined 每次都会占用一个独立连接）
+     *
+     * @param refreshEarly 为 null 时不检查剩余 TTL
+     */
+    private byte[] readBytes(String key, Runnable refreshEarly) {
+        byte[] rawKey = keyBytes(key);
+        if (!needsTtl(key, refreshEarly)) {
+            return onRead(key, execute((RedisCallback<byte[]>) connection -> connection.get(rawKey)), -1L, null);
+        }
+        try {
+            return readBytesAsync(key, refreshEarly).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * readBytes 的异步版本，GET 和 PTTL 在同一个连接上连续发出
+     */
+    private CompletableFuture<byte[]> readBytesAsync(String key, Runnable refreshEarly) {
+        byte[] rawKey = keyBytes(key);
+        if (!needsTtl(key, refreshEarly)) {
+            return circuitBreaker.executeAsync(() -> asyncCommands().get(rawKey).toCompletableFuture())
+                    .thenApply(valBytes -> onRead(key, valBytes, -1L, null));
+        }
+        return circuitBreaker.executeAsync(() -> {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = asyncCommands();
+            CompletableFuture<byte[]> value = commands.get(rawKey).toCompletableFuture();
+            CompletableFuture<Long> ttl = commands.pttl(rawKey).toCompletableFuture();
+            return value.thenCombine(ttl, (valBytes, remaining) -> onRead(key, valBytes, remaining, refreshEarly));
+        });
+    }
+
+    private boolean needsTtl(String key, Runnable refreshEarly) {
+        return refreshEarly != null && ttlPolicies.needsTtl(key);
+    }
+
+    /**
+     * 未命中和提前刷新都从这里开始测量重建耗时，到同一个 key 写回时结束
+     */
+    private byte[] onRead(String key, byte[] valBytes, Long remainingMillis, Runnable refreshEarly) {
+        if (valBytes == null) {
+            ttlPolicies.onMiss(key, fullKey(key));
+        } else if (refreshEarly != null && remainingMillis != null && ttlPolicies.shouldRefreshEarly(key, remainingMillis)) {
+            ttlPolicies.onMiss(key, fullKey(key));
+            refreshEarly.run();
+        }
+        return valBytes;
+    }
+
+    /**
+     * 记录一次读取；热点 key 优先返回本地副本，所有节点不再集中读取同一个 Redis 分片
+     */
+    private String hotLocalGet(String fullKey) {
+        hotKeyDetector.record(fullKey);
+        if (!hotKeyDetector.isHot(fullKey)) {
+            return null;
+        }
+        String value = nearCache.getLocal(fullKey);
+        if (value != null) {
+            hotKeyDetector.localHit();
+        }
+        return value;
+    }
+
+    /**
+     * 热点 key 从 Redis 读到后保存一份短 TTL 的本地副本，写入和删除时和二级缓存一样会被广播失效
+     */
+    private void hotLocalPut(String fullKey, String value) {
+        if (value != null && hotKeyDetector.isHot(fullKey)) {
+            nearCache.putLocal(fullKey, value, hotKeyDetector.localTtl());
+        }
+    }
+
+    /**
+     * 在熔断器保护下执行命令，熔断打开时抛出 {@link RedisUnavailableException}
+     */
+    private <T> T execute(RedisCallback<T> action) {
+        return circuitBreaker.execute(() -> template.execute(action));
+    }
+
+    private List<Object> executePipelined(RedisCallback<?> action) {
+        return circuitBreaker.execute(() -> template.executePipelined(action));
+    }
+
+    /**
+     * 清除本地缓存，并在同一个连接上广播失效消息
+     */
+    private void invalidateNear(RedisConnection connection, String key) {
+        String fullKey = fullKey(key);
+        nearCache.invalidate(fullKey);
+        connection.publish(nearCache.channel().getBytes(CODE), fullKey.getBytes(CODE));
+    }
+
+    /**
+     * 设置过期时间，与写入一样按策略浮动
+     */
     public void expire(String key, Long expire, TimeUnit timeUnit) {
-        template.execute((RedisCallback<Void>) connection -> {
-            connection.expire(keyBytes(key), expire);
+        nullCheck(expire, timeUnit);
+        long expireMillis = ttlPolicies.jitteredMillis(key, expire, timeUnit);
+        execute((RedisCallback<Void>) connection -> {
+            connection.pExpire(keyBytes(key), expireMillis);
             return null;
         });
     }
@@ -155,7 +591,7 @@ public class RedisClient {
      * @return
      */
     public Long ttl(String key) {
-        return template.execute((RedisCallback<Long>) connection -> connection.ttl(keyBytes(key)));
+        return execute((RedisCallback<Long>) connection -> connection.ttl(keyBytes(key)));
     }
 
 }
@@ -1,61 +1,348 @@
 package com.github.cache;
 
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Redis工具类中实现一个用于原子性地比较并删除的方法
+ * 以及基于 fencing token 的加锁和条件写入
+ * 脚本统一定义在 {@link LuaScripts} 中，启动时预加载，执行时走 EVALSHA
  */
+@Slf4j
 @Component
 public class RedisLuaUtil {
 
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisSerializer<List> LIST_SERIALIZER = new GenericToStringSerializer<>(List.class);
+
     @Value("${prefix.demo}")
     private String DEMO_FIX;
 
+    @Resource
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    @Resource
+    private NearCache nearCache;
+
+    @Resource
+    private LockReleaseNotifier lockReleaseNotifier;
 
     @Resource
-    private RedisTemplate<String, String> redisTemplate;
+    private RedisClient redisClient;
+
+    @Resource
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Resource
+    private TtlPolicies ttlPolicies;
+
+    private boolean clusterMode; // 是否连接的是 Redis Cluster，决定多 key 脚本是否需要按槽位拆分
     
     public void register(RedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = redisTemplate;
     }
     
     /**
      * 比较并删除 - Compare And Delete
-     * 只有当key存在且value匹配时才删；
+     * 只有当key存在且value匹配时才删；删除成功后通知等待该锁的线程
      * @param key Redis键
      * @param expectedValue 期望的值
      * @return 1-删除成功；0-值不匹配或key不存在
      */
     public Long cad(String key, String expectedValue) {
-        // 确保使用String序列化器
-        redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        Long result = execute(LuaScripts.COMPARE_AND_DELETE, Collections.singletonList(DEMO_FIX + key),
+                expectedValue, lockReleaseNotifier.channel(key));
+        if (result == null || result == 0) {
+            // 锁已过期或者已被其他持有者获取，不再当作异常处理，由调用方决定后续动作
+            log.warn("释放锁失败：key={}，expectedValue={}，锁已过期或被其他持有者获取", DEMO_FIX + key, expectedValue);
+            return 0L;
+        }
+        return result;
+    }
+
+    /**
+     * 加锁并生成 fencing token
+     * 加锁和递增 fence 计数器在同一个脚本中完成，锁的值就是 token，token 对同一个 key 单调递增
+     *
+     * @param lockKey  锁的key
+     * @param fenceKey fence 计数器的key
+     * @param leaseTime 锁的持有时间
+     * @param timeUnit 时间单位
+     * @return 加锁成功返回 token（大于0）；锁已被持有返回 0
+     */
+    public Long tryLockWithFence(String lockKey, String fenceKey, long leaseTime, TimeUnit timeUnit) {
+        return execute(LuaScripts.LOCK_WITH_FENCE, Arrays.asList(DEMO_FIX + lockKey, DEMO_FIX + fenceKey),
+                String.valueOf(timeUnit.toMillis(leaseTime)));
+    }
+
+    /**
+     * 根据 fencing token 条件写入缓存
+     * 只有 token 仍是该 key 最新签发的 token 时才写入，防止锁过期后被暂停的旧持有者写入过期数据
+     * 写入成功后在同一个脚本中广播本地缓存失效消息
+     * 与 RedisClient 的写入一样应用 {@link TtlPolicies}：过期时间按前缀的策略浮动，写入成功后结束重建耗时的计时
+     *
+     * @param cacheKey 缓存的key
+     * @param fenceKey fence 计数器的key
+     * @param token    加锁时拿到的 token
+     * @param value    缓存的值
+     * @param ttlMillis 过期时间(毫秒)，0 表示不过期
+     * @return 写入成功返回 true；token 已过期返回 false
+     */
+    public boolean setIfFenceValid(String cacheKey, String fenceKey, Long token, String value, long ttlMillis) {
+        Long result = execute(LuaScripts.SET_IF_FENCE_VALID, Arrays.asList(DEMO_FIX + cacheKey, DEMO_FIX + fenceKey),
+                String.valueOf(token), value, nearCache.channel(),
+                String.valueOf(ttlPolicies.jitteredMillis(cacheKey, ttlMillis, TimeUnit.MILLISECONDS)));
+        return onFencedWrite(cacheKey, result);
+    }
+
+    /**
+     * 尝试获取一个信号量许可
+     *
+     * @param key         信号量的key
+     * @param permits     许可总数，各调用方需要保持一致
+     * @param holder      持有者，释放时需要传入相同的值
+     * @param leaseMillis 租约时间(毫秒)，持有者宕机时许可在到期后自动回收
+     * @return 获取成功返回 true
+     */
+    public boolean tryAcquireSemaphore(String key, int permits, String holder, long leaseMillis) {
+        Long result = execute(LuaScripts.SEMAPHORE_ACQUIRE, Collections.singletonList(DEMO_FIX + key),
+                String.valueOf(permits), holder, String.valueOf(leaseMillis));
+        return result != null && result > 0;
+    }
+
+    /**
+     * 释放信号量许可，释放成功后通知等待的线程
+     *
+     * @return 释放成功返回 true；租约已过期返回 false
+     */
+    public boolean releaseSemaphore(String key, String holder) {
+        Long result = execute(LuaScripts.SEMAPHORE_RELEASE, Collections.singletonList(DEMO_FIX + key),
+                holder, lockReleaseNotifier.channel(key));
+        return result != null && result > 0;
+    }
+
+    /**
+     * 尝试加读锁，写锁被持有时失败
+     */
+    public boolean tryReadLock(String key, String holder, long leaseMillis) {
+        Long result = execute(LuaScripts.READ_LOCK, Collections.singletonList(DEMO_FIX + key),
+                holder, String.valueOf(leaseMillis));
+        return result != null && result > 0;
+    }
+
+    /**
+     * 尝试加写锁，有任何读锁或其他持有者的写锁时失败
+     */
+    public boolean tryWriteLock(String key, String holder, long leaseMillis) {
+        Long result = execute(LuaScripts.WRITE_LOCK, Collections.singletonList(DEMO_FIX + key),
+                holder, String.valueOf(leaseMillis));
+        return result != null && result > 0;
+    }
+
+    /**
+     * 释放读锁或写锁，锁完全释放后通知等待的线程
+     *
+     * @return 释放成功返回 true；不是持有者或锁已过期返回 false
+     */
+    public boolean unlockReadWrite(String key, String holder) {
+        Long result = execute(LuaScripts.READ_WRITE_UNLOCK, Collections.singletonList(DEMO_FIX + key),
+                holder, lockReleaseNotifier.channel(key));
+        return result != null && result > 0;
+    }
 
-        String prefixed_key = DEMO_FIX + key;
-        String script =
-                "local value = redis.call('get', KEYS[1]); " +
-                        "if value == ARGV[1] then " +
-                        "    return redis.call('del', KEYS[1]); " +
-                        "else " +
-                        "    return 0; " +
-                        "end";
+    /**
+     * cad 的异步版本
+     */
+    public CompletableFuture<Long> cadAsync(String key, String expectedValue) {
+        return executeAsync(LuaScripts.COMPARE_AND_DELETE, Collections.singletonList(DEMO_FIX + key),
+                expectedValue, lockReleaseNotifier.channel(key));
+    }
+
+    /**
+     * tryLockWithFence 的异步版本
+     */
+    public CompletableFuture<Long> tryLockWithFenceAsync(String lockKey, String fenceKey, long leaseTime, TimeUnit timeUnit) {
+        return executeAsync(LuaScripts.LOCK_WITH_FENCE, Arrays.asList(DEMO_FIX + lockKey, DEMO_FIX + fenceKey),
+                String.valueOf(timeUnit.toMillis(leaseTime)));
+    }
+
+    /**
+     * setIfFenceValid 的异步版本
+     */
+    public CompletableFuture<Boolean> setIfFenceValidAsync(String cacheKey, String fenceKey, Long token, String value, long ttlMillis) {
+        return executeAsync(LuaScripts.SET_IF_FENCE_VALID, Arrays.asList(DEMO_FIX + cacheKey, DEMO_FIX + fenceKey),
+                String.valueOf(token), value, nearCache.channel(),
+                String.valueOf(ttlPolicies.jitteredMillis(cacheKey, ttlMillis, TimeUnit.MILLISECONDS)))
+                .thenApply(result -> onFencedWrite(cacheKey, result));
+    }
+
+    private boolean onFencedWrite(String cacheKey, Long result) {
+        boolean written = result != null && result > 0;
+        if (written) {
+            ttlPolicies.onWrite(cacheKey, DEMO_FIX + cacheKey);
+        }
+        return written;
+    }
+
+    /**
+     * 批量续约，一次脚本调用检查并续期多把锁；集群模式下按槽位分组，每个槽位一次脚本调用
+     *
+     * @param lockKeys  锁的key
+     * @param owners    与 lockKeys 一一对应的持有者(锁的值)
+     * @param leaseMillis 与 lockKeys 一一对应的续期时间(毫秒)
+     * @return 与 lockKeys 一一对应的结果，true-续约成功；false-锁已失效
+     */
+    public List<Boolean> batchRenew(List<String> lockKeys, List<String> owners, List<Long> leaseMillis) {
+        if (!clusterMode) {
+            return renewInOneScript(lockKeys, owners, leaseMillis);
+        }
+
+        // 集群模式下一个脚本的 KEYS 必须在同一个槽位，按槽位分组后并行执行，每组一次 EVALSHA
+        Map<Integer, List<Integer>> slots = new HashMap<>();
+        for (int i = 0; i < lockKeys.size(); i++) {
+            slots.computeIfAbsent(ClusterKeys.slot(DEMO_FIX + lockKeys.get(i)), k -> new ArrayList<>()).add(i);
+        }
+        Boolean[] renewed = new Boolean[lockKeys.size()];
+        List<CompletableFuture<Void>> futures = new ArrayList<>(slots.size());
+        for (List<Integer> indexes : slots.values()) {
+            List<String> keys = new ArrayList<>(indexes.size());
+            String[] args = new String[indexes.size() * 2];
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.get(i);
+                keys.add(DEMO_FIX + lockKeys.get(index));
+                args[i] = owners.get(index);
+                args[indexes.size() + i] = String.valueOf(leaseMillis.get(index));
+            }
+            futures.add(circuitBreaker.<List<Object>>executeAsync(() -> evalShaAsync(LuaScripts.BATCH_RENEW, ScriptOutputType.MULTI, keys, args))
+                    .thenAccept(results -> {
+                        for (int i = 0; i < indexes.size(); i++) {
+                            renewed[indexes.get(i)] = isRenewed(results, i);
+                        }
+                    }));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return Arrays.asList(renewed);
+    }
 
-        Long result = redisTemplate.execute(
-                new DefaultRedisScript<>(script, Long.class),
-                Collections.singletonList(prefixed_key),
-                expectedValue);
+    private List<Boolean> renewInOneScript(List<String> lockKeys, List<String> owners, List<Long> leaseMillis) {
+        List<String> keys = new ArrayList<>(lockKeys.size());
+        for (String lockKey : lockKeys) {
+            keys.add(DEMO_FIX + lockKey);
+        }
+        String[] args = new String[lockKeys.size() * 2];
+        for (int i = 0; i < lockKeys.size(); i++) {
+            args[i] = owners.get(i);
+            args[lockKeys.size() + i] = String.valueOf(leaseMillis.get(i));
+        }
 
-        if (result == 0) {
-            throw new RuntimeException("释放锁失败：key=" + prefixed_key + "，expectedValue=" + expectedValue + "，实际值=" + redisTemplate.opsForValue().get(prefixed_key));
+        @SuppressWarnings("unchecked")
+        List<Object> results = circuitBreaker.execute(() -> stringRedisTemplate.execute(LuaScripts.BATCH_RENEW,
+                StringRedisSerializer.UTF_8, LIST_SERIALIZER, keys, (Object[]) args));
+        List<Boolean> renewed = new ArrayList<>(lockKeys.size());
+        for (int i = 0; i < lockKeys.size(); i++) {
+            renewed.add(isRenewed(results, i));
+        }
+        return renewed;
+    }
 
+    private static boolean isRenewed(List<Object> results, int i) {
+        Object result = results == null || i >= results.size() ? null : results.get(i);
+        return result instanceof Long && (Long) result > 0;
+    }
+
+    /**
+     * 启动时把所有脚本加载到 Redis 的脚本缓存中，之后都通过 SHA 执行
+     */
+    @PostConstruct
+    public void loadScripts() {
+        RedisConnectionFactory connectionFactory = stringRedisTemplate.getRequiredConnectionFactory();
+        clusterMode = connectionFactory instanceof LettuceConnectionFactory
+                && ((LettuceConnectionFactory) connectionFactory).isClusterAware();
+        try {
+            stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : LuaScripts.all()) {
+                    connection.scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            log.info("预加载 Lua 脚本 {} 个", LuaScripts.all().size());
+        } catch (Exception e) {
+            // 预加载失败不影响启动，首次执行时会因 NOSCRIPT 回退为 EVAL
+            log.warn("预加载 Lua 脚本失败", e);
         }
+    }
+
+    private CompletableFuture<Long> executeAsync(RedisScript<Long> script, List<String> keys, String... args) {
+        return circuitBreaker.executeAsync(() -> evalShaAsync(script, ScriptOutputType.INTEGER, keys, args));
+    }
+
+    /**
+     * 通过 Lettuce 异步执行 EVALSHA，返回 NOSCRIPT 时回退为 EVAL
+     */
+    private <T> CompletableFuture<T> evalShaAsync(RedisScript<?> script, ScriptOutputType outputType, List<String> keys, String... args) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = redisClient.asyncCommands();
+        byte[][] rawKeys = keys.stream().map(StringRedisSerializer.UTF_8::serialize).toArray(byte[][]::new);
+        byte[][] rawArgs = Arrays.stream(args).map(StringRedisSerializer.UTF_8::serialize).toArray(byte[][]::new);
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        commands.<T>evalsha(script.getSha1(), outputType, rawKeys, rawArgs).whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof RedisNoScriptException)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            commands.<T>eval(script.getScriptAsString(), outputType, rawKeys, rawArgs)
+                    .whenComplete((evalValue, evalError) -> {
+                        if (evalError != null) {
+                            result.completeExceptionally(evalError);
+                        } else {
+                            result.complete(evalValue);
+                        }
+                    });
+        });
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 通过 EVALSHA 执行脚本，Redis 返回 NOSCRIPT（如重启或 SCRIPT FLUSH）时 Spring 会自动回退为 EVAL
+     * 使用独立的、不可变的序列化器，不修改共享 template 的配置
+     */
+    private Long execute(RedisScript<Long> script, List<String> keys, String... args) {
+        return circuitBreaker.execute(() ->
+                stringRedisTemplate.execute(script, StringRedisSerializer.UTF_8, LONG_SERIALIZER, keys, (Object[]) args));
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Lua 脚本的分布式读写锁
+ * 读锁之间共享，写锁独占，同一个持有者可重入；不支持锁升级和降级。
+ * 所有持有者共用一个租约，每次加锁时延长到不小于本次的租约时间。
+ * 读锁持续被持有时写锁会一直等待，适合写少读多、读锁持有时间短的场景。
+ */
+@Component
+public class RedisReadWriteLock {
+
+    @Value("${cache.lock.sleepTime:200}")
+    private long pollMillis; // 等待通知的兜底间隔，锁过期时没有通知
+
+    @Resource
+    private RedisLuaUtil redisLuaUtil;
+
+    @Resource
+    private LockReleaseNotifier lockReleaseNotifier;
+
+    public boolean tryReadLock(String key, String holder, long leaseTime, TimeUnit timeUnit) {
+        return redisLuaUtil.tryReadLock(key, holder, timeUnit.toMillis(leaseTime));
+    }
+
+    public boolean tryWriteLock(String key, String holder, long leaseTime, TimeUnit timeUnit) {
+        return redisLuaUtil.tryWriteLock(key, holder, timeUnit.toMillis(leaseTime));
+    }
+
+    /**
+     * 加读锁，最多等待 waitTime
+     */
+    public boolean readLock(String key, String holder, long leaseTime, long waitTime, TimeUnit timeUnit) throws InterruptedException {
+        long leaseMillis = timeUnit.toMillis(leaseTime);
+        return lockReleaseNotifier.awaitUntil(key, timeUnit.toMillis(waitTime), pollMillis,
+                () -> redisLuaUtil.tryReadLock(key, holder, leaseMillis));
+    }
+
+    /**
+     * 加写锁，最多等待 waitTime
+     */
+    public boolean writeLock(String key, String holder, long leaseTime, long waitTime, TimeUnit timeUnit) throws InterruptedException {
+        long leaseMillis = timeUnit.toMillis(leaseTime);
+        return lockReleaseNotifier.awaitUntil(key, timeUnit.toMillis(waitTime), pollMillis,
+                () -> redisLuaUtil.tryWriteLock(key, holder, leaseMillis));
+    }
+
+    /**
+     * 释放读锁或写锁
+     */
+    public boolean unlock(String key, String holder) {
+        return redisLuaUtil.unlockReadWrite(key, holder);
+    }
+}
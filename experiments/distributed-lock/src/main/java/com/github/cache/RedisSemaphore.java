@@ -0,0 +1,52 @@
+package com.github.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Lua 脚本的分布式信号量，限制整个集群同时执行某个操作的数量
+ * 每个许可带租约，持有者宕机后许可到期自动回收；许可释放时通过锁释放频道唤醒等待者。
+ */
+@Component
+public class RedisSemaphore {
+
+    @Value("${cache.lock.sleepTime:200}")
+    private long pollMillis; // 等待通知的兜底间隔，许可过期回收时没有通知
+
+    @Resource
+    private RedisLuaUtil redisLuaUtil;
+
+    @Resource
+    private LockReleaseNotifier lockReleaseNotifier;
+
+    /**
+     * 尝试获取一个许可，不等待
+     *
+     * @param key       信号量的key
+     * @param permits   许可总数
+     * @param holder    持有者，需要全局唯一
+     * @param leaseTime 租约时间
+     * @param timeUnit  时间单位
+     */
+    public boolean tryAcquire(String key, int permits, String holder, long leaseTime, TimeUnit timeUnit) {
+        return redisLuaUtil.tryAcquireSemaphore(key, permits, holder, timeUnit.toMillis(leaseTime));
+    }
+
+    /**
+     * 获取一个许可，最多等待 waitTime
+     *
+     * @return 获取成功返回 true；超时返回 false
+     */
+    public boolean acquire(String key, int permits, String holder, long leaseTime, long waitTime, TimeUnit timeUnit) throws InterruptedException {
+        long leaseMillis = timeUnit.toMillis(leaseTime);
+        return lockReleaseNotifier.awaitUntil(key, timeUnit.toMillis(waitTime), pollMillis,
+                () -> redisLuaUtil.tryAcquireSemaphore(key, permits, holder, leaseMillis));
+    }
+
+    public boolean release(String key, String holder) {
+        return redisLuaUtil.releaseSemaphore(key, holder);
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.cache;
+
+/**
+ * Redis 熔断期间拒绝执行命令时抛出，调用方据此切换到降级逻辑
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+    public RedisUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的请求合并（single-flight）
+ * 同一个 key 同一时刻只有一个线程真正执行加载逻辑，其它线程等待同一个 future 的结果，
+ * 这样热点 key 失效时，每个节点每个 key 只会有一个线程去竞争分布式锁。
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载逻辑，相同 key 的并发调用会被合并
+     *
+     * @param key    合并的 key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     * @param <T> 结果类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) { // 已经有线程在加载，等待其结果
+            log.info("线程 {} 合并到进行中的加载：{}", Thread.currentThread(), key);
+            return (T) await(existing);
+        }
+
+        try {
+            T result = loader.call();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            // 先移除再让后续请求进来，结果已经写入 future，等待的线程不受影响
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * execute 的异步版本，相同 key 的并发调用共享同一个 future，调用线程不会被阻塞
+     *
+     * @param key    合并的 key
+     * @param loader 异步加载逻辑
+     * @return 加载结果
+     * @param <T> 结果类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) { // 已经有请求在加载，共享其结果
+            log.info("异步请求合并到进行中的加载：{}", key);
+            return (CompletableFuture<T>) existing;
+        }
+
+        CompletableFuture<T> loading;
+        try {
+            loading = loader.get();
+        } catch (Throwable e) {
+            loading = new CompletableFuture<>();
+            loading.completeExceptionally(e);
+        }
+        loading.whenComplete((result, e) -> {
+            inFlight.remove(key, future);
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(result);
+            }
+        });
+        return (CompletableFuture<T>) future;
+    }
+
+    private Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * stale-while-revalidate 的异步刷新器
+ * 逻辑过期的缓存先把旧值返回给调用方，刷新任务在后台线程池中执行；
+ * 同一个 key 在本节点同一时刻只提交一个刷新任务（排队和执行期间都不会重复提交），
+ * 任务结束但没有刷新成功（失败、未抢到锁）后在 backoff 时间内不再重复提交；任务被线程池拒绝时立即清除记录，下次读取重新提交。
+ * 跨节点只有一个节点刷新，由刷新任务自己通过分布式锁保证。
+ */
+@Slf4j
+@Component
+public class StaleRefresher {
+
+    @Value("${cache.refresh.threads:4}")
+    private int threads; // 刷新线程数
+
+    @Value("${cache.refresh.queueSize:1000}")
+    private int queueSize; // 等待刷新的任务上限，超出时丢弃，下次读取时会重新提交
+
+    @Value("${cache.refresh.backoff:120000}")
+    private long backoff; // 刷新没有成功时，到下一次尝试的最小间隔(毫秒)，不小于一次重建的耗时，否则其他节点还在重建时会反复重试
+
+    private static final long IN_FLIGHT = Long.MAX_VALUE;
+
+    /**
+     * key -> IN_FLIGHT（任务排队或执行中）或 不早于这个时间(毫秒)再提交；刷新成功时移除
+     */
+    private final ConcurrentHashMap<String, Long> attempts = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueSize),
+                r -> {
+                    Thread thread = new Thread(r, "cache-refresh-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交异步刷新任务
+     *
+     * @param key  缓存的key
+     * @param task 刷新逻辑，需要自己获取分布式锁
+     */
+    public void refresh(String key, Runnable task) {
+        long now = System.currentTimeMillis();
+        boolean[] submit = {false};
+        attempts.compute(key, (k, notBefore) -> {
+            if (notBefore != null && now < notBefore) {
+                return notBefore;
+            }
+            submit[0] = true;
+            return IN_FLIGHT;
+        });
+        if (!submit[0]) {
+            return;
+        }
+        if (attempts.size() > queueSize) {
+            purge(now); // 只失败一次之后不再被读取的 key 不会再进入 refresh，定期清理
+        }
+
+        log.info("缓存 {} 已逻辑过期或即将过期，提交异步刷新", key);
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("异步刷新缓存 {} 失败", key, e);
+                } finally {
+                    // 没有调用 refreshed（失败、未抢到锁、拿不到许可），backoff 之后再试
+                    attempts.computeIfPresent(key, (k, notBefore) ->
+                            notBefore == IN_FLIGHT ? System.currentTimeMillis() + backoff : notBefore);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            attempts.remove(key, IN_FLIGHT);
+            log.warn("刷新队列已满，丢弃缓存 {} 的刷新任务，下次读取时重新提交", key);
+        }
+    }
+
+    /**
+     * 刷新成功后清除尝试记录
+     */
+    public void refreshed(String key) {
+        attempts.remove(key);
+    }
+
+    private void purge(long now) {
+        attempts.values().removeIf(notBefore -> notBefore != IN_FLIGHT && notBefore <= now);
+    }
+}
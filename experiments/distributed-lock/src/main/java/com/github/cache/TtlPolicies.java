@@ -0,0 +1,225 @@
+package com.github.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 key 前缀配置的过期策略，由 RedisClient 在写入和读取时统一应用
+ * 1. 过期时间抖动：写入时在调用方给出的 TTL 上随机浮动 ±jitter，同一批写入的 key 不会在同一时刻过期，避免缓存雪崩；
+ * 2. 提前刷新（XFetch）：读取时按剩余 TTL 和重建耗时计算是否提前刷新，越接近过期、重建越慢，提前刷新的概率越大，
+ *    需要提前刷新时读到的值照常返回，同时调用读取方给出的刷新逻辑在后台重建（见 RedisClient#stringGetWithNearCache(String, Runnable)），
+ *    过期前就已经写回新值，过期时不会同时涌向数据库；没有给出刷新逻辑的读取不检查剩余 TTL。
+ * 重建耗时在本节点测量：读取未命中到同一个 key 写回之间的时间，按前缀做指数加权平均。
+ * 没有配置策略的 key（如锁）保持原样，TTL 不做任何调整。
+ */
+@Slf4j
+@Component
+@ConfigurationProperties(prefix = "cache.ttl")
+public class TtlPolicies {
+
+    private static final double EWMA_ALPHA = 0.2; // 重建耗时的平滑系数，越大越偏向最近一次
+
+    @Setter
+    private Map<String, Policy> policies = new LinkedHashMap<>(); // key 前缀（不含 prefix.demo）-> 策略
+
+    @Setter
+    private int maxPending = 10000; // 最多同时跟踪的未命中 key 数，超过时不再测量新的重建耗时
+
+    @Setter
+    private long maxRecomputeMillis = 300000; // 未命中后超过这个时间才写回的不计入重建耗时，需要大于最慢的重建（文章约 120 秒）
+
+    private final List<Policy> ordered = new ArrayList<>(); // 按前缀长度从长到短，最长匹配优先
+
+    private final ConcurrentHashMap<String, Long> pendingMisses = new ConcurrentHashMap<>(); // key -> 未命中时的 nanoTime
+
+    @PostConstruct
+    public void init() {
+        policies.forEach((prefix, policy) -> policy.prefix = prefix);
+        ordered.addAll(policies.values());
+        ordered.sort(Comparator.comparingInt((Policy policy) -> policy.prefix.length()).reversed());
+        log.info("过期策略：{}", policies.keySet());
+    }
+
+    /**
+     * @param key 不含 prefix.demo 的 key
+     * @return 匹配的策略，没有配置时返回 null
+     */
+    public Policy match(String key) {
+        for (Policy policy : ordered) {
+            if (key.startsWith(policy.prefix)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 写入时使用的过期时间(毫秒)，没有配置策略时原样返回
+     *
+     * @param key     不含 prefix.demo 的 key
+     * @param ttl     调用方给出的过期时间
+     * @param unit    ttl 的单位
+     */
+    public long jitteredMillis(String key, long ttl, TimeUnit unit) {
+        long millis = unit.toMillis(ttl);
+        Policy policy = match(key);
+        if (policy == null || policy.jitter <= 0 || millis <= 0) {
+            return millis;
+        }
+        double factor = 1 + policy.jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        policy.jittered.increment();
+        return Math.max(1, (long) (millis * factor));
+    }
+
+    /**
+     * 读取时是否需要剩余 TTL，只有开启了提前刷新的前缀才多发一条 PTTL
+     */
+    public boolean needsTtl(String key) {
+        Policy policy = match(key);
+        return policy != null && policy.beta > 0;
+    }
+
+    /**
+     * XFetch：recompute * beta * -ln(random) >= 剩余 TTL 时提前刷新
+     *
+     * @param key            不含 prefix.demo 的 key
+     * @param remainingMillis PTTL 的结果，key 没有过期时间时为负数
+     * @return 是否需要在后台提前刷新，读到的值仍然返回给调用方
+     */
+    public boolean shouldRefreshEarly(String key, long remainingMillis) {
+        Policy policy = match(key);
+        if (policy == null || policy.beta <= 0 || remainingMillis < 0) {
+            return false;
+        }
+        double recompute = policy.recomputeMillis;
+        if (recompute <= 0) {
+            return false; // 还没有测量到重建耗时
+        }
+        double random = 1 - ThreadLocalRandom.current().nextDouble(); // (0, 1]，避免 ln(0)
+        if (recompute * policy.beta * -Math.log(random) < remainingMillis) {
+            return false;
+        }
+        policy.earlyRefreshes.increment();
+        return true;
+    }
+
+    /**
+     * 读取未命中或需要提前刷新，开始计时
+     *
+     * @param key     不含 prefix.demo 的 key
+     * @param fullKey Redis 中的完整 key
+     */
+    public void onMiss(String key, String fullKey) {
+        Policy policy = match(key);
+        if (policy == null || policy.beta <= 0) {
+            return;
+        }
+        if (pendingMisses.size() >= maxPending) {
+            purgePending(); // 只读不写的 key 不会写回，定期清理
+            return;
+        }
+        pendingMisses.putIfAbsent(fullKey, System.nanoTime());
+    }
+
+    /**
+     * 写入时结束计时，未命中到写回的时间计入这个前缀的重建耗时
+     *
+     * @param key     不含 prefix.demo 的 key
+     * @param fullKey Redis 中的完整 key
+     */
+    public void onWrite(String key, String fullKey) {
+        if (pendingMisses.isEmpty()) {
+            return;
+        }
+        Long missAt = pendingMisses.remove(fullKey);
+        if (missAt == null) {
+            return;
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - missAt);
+        Policy policy = match(key);
+        if (policy == null || elapsed > maxRecomputeMillis) {
+            return;
+        }
+        // 并发更新时可能丢失一次采样，这里只需要近似值
+        double previous = policy.recomputeMillis;
+        policy.recomputeMillis = previous <= 0 ? elapsed : previous + EWMA_ALPHA * (elapsed - previous);
+    }
+
+    private void purgePending() {
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxRecomputeMillis);
+        pendingMisses.values().removeIf(missAt -> missAt - deadline < 0);
+    }
+
+    /**
+     * 注册监控指标，由 {@link CacheMetrics} 在启动时调用
+     */
+    public void bindTo(MeterRegistry registry) {
+        for (Policy policy : ordered) {
+            Gauge.builder("cache.ttl.recompute", policy, p -> p.recomputeMillis)
+                    .description("测量到的缓存重建耗时(毫秒)")
+                    .tag("prefix", policy.prefix)
+                    .register(registry);
+            FunctionCounter.builder("cache.ttl.early.refresh", policy.earlyRefreshes, LongAdder::sum)
+                    .description("提前刷新（读取当作未命中）的次数")
+                    .tag("prefix", policy.prefix)
+                    .register(registry);
+            FunctionCounter.builder("cache.ttl.jittered", policy.jittered, LongAdder::sum)
+                    .description("写入时调整过期时间的次数")
+                    .tag("prefix", policy.prefix)
+                    .register(registry);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Policy policy : ordered) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("jitter", policy.jitter);
+            item.put("beta", policy.beta);
+            item.put("recomputeMillis", Math.round(policy.recomputeMillis));
+            item.put("jittered", policy.jittered.sum());
+            item.put("earlyRefreshes", policy.earlyRefreshes.sum());
+            stats.put(policy.prefix, item);
+        }
+        stats.put("pendingMisses", pendingMisses.size());
+        return stats;
+    }
+
+    /**
+     * 一个前缀的过期策略
+     */
+    public static class Policy {
+
+        private String prefix;
+
+        @Getter
+        @Setter
+        private double jitter; // 过期时间的浮动比例，0.1 表示 ±10%，0 表示不抖动
+
+        @Getter
+        @Setter
+        private double beta; // XFetch 的提前系数，越大越早刷新，0 表示不提前刷新
+
+        private volatile double recomputeMillis; // 重建耗时的加权平均(毫秒)
+
+        private final LongAdder jittered = new LongAdder();
+        private final LongAdder earlyRefreshes = new LongAdder();
+    }
+}
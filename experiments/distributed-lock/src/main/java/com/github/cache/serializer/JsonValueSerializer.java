@@ -0,0 +1,35 @@
+package com.github.cache.serializer;
+
+import cn.hutool.json.JSONUtil;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于 Hutool 的 JSON 序列化，可读性好，体积和性能都不如二进制格式
+ */
+public class JsonValueSerializer implements ValueSerializer {
+
+    @Override
+    public byte[] serialize(Object value) {
+        try {
+            return JSONUtil.toJsonStr(value).getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new SerializationException("JSON 序列化失败：" + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> type) {
+        return deserialize(bytes, 0, bytes.length, type);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, int offset, int length, Class<T> type) {
+        try {
+            return JSONUtil.toBean(new String(bytes, offset, length, StandardCharsets.UTF_8), type);
+        } catch (Exception e) {
+            throw new SerializationException("JSON 反序列化失败：" + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.cache.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于 Kryo 的紧凑二进制序列化
+ * 只写字段值，不写字段名；顶层对象的类型由调用方传入，不写类名
+ * Kryo 和 Output 都不是线程安全的，通过对象池复用，Output 的缓冲区跨调用复用，只在最后拷贝一次结果
+ * 注意：类的字段增删后，旧数据无法按新结构读出，RedisClient 会把这种情况当作缓存未命中；
+ * 因为不写类名，读取时必须传入具体类型，传入接口或抽象类属于调用错误，直接抛出 IllegalArgumentException，不当作未命中
+ */
+public class KryoValueSerializer implements ValueSerializer {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024; // 超过这个大小的缓冲区不放回池中，避免长期占用内存
+
+    private final Pool<Kryo> kryoPool;
+
+    private final Pool<Output> outputPool;
+
+    public KryoValueSerializer(int poolSize) {
+        kryoPool = new Pool<Kryo>(true, false, poolSize) {
+            @Override
+            protected Kryo create() {
+                Kryo kryo = new Kryo();
+                kryo.setRegistrationRequired(false);
+                kryo.setReferences(false); // 缓存的值都是树形结构，关闭循环引用检测
+                // 优先使用无参构造器，没有时绕过构造器创建对象
+                kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+                return kryo;
+            }
+        };
+        outputPool = new Pool<Output>(true, false, poolSize) {
+            @Override
+            protected Output create() {
+                return new Output(BUFFER_SIZE, -1);
+            }
+        };
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        Kryo kryo = kryoPool.obtain();
+        Output output = outputPool.obtain();
+        try {
+            output.reset();
+            kryo.writeObject(output, value);
+            return output.toBytes();
+        } catch (Exception e) {
+            throw new SerializationException("Kryo 序列化失败：" + value.getClass().getName(), e);
+        } finally {
+            kryoPool.free(kryo);
+            if (output.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+                outputPool.free(output);
+            }
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> type) {
+        return deserialize(bytes, 0, bytes.length, type);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, int offset, int length, Class<T> type) {
+        if (!type.isPrimitive() && !type.isArray() && (type.isInterface() || Modifier.isAbstract(type.getModifiers()))) {
+            throw new IllegalArgumentException("Kryo 不写类名，无法按接口或抽象类反序列化，请传入具体类型：" + type.getName());
+        }
+        Kryo kryo = kryoPool.obtain();
+        try {
+            return kryo.readObject(new Input(bytes, offset, length), type);
+        } catch (Exception e) {
+            throw new SerializationException("Kryo 反序列化失败：" + type.getName(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.cache.serializer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * 在其他序列化器外层按大小压缩，序列化结果超过阈值时使用 LZ4 压缩
+ * 格式：第 1 个字节为标记，0-未压缩，后面是原始数据；1-LZ4，后面是 4 个字节的原始长度和压缩数据
+ * 压缩后没有变小时按未压缩存储，读取时不依赖当前阈值，阈值调整后旧数据仍可读
+ * 读取时不信任头部的原始长度：超出 [0, maxDecompressedSize] 的按损坏数据处理，抛出 SerializationException，由 RedisClient 当作未命中
+ */
+public class Lz4ValueSerializer implements ValueSerializer {
+
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+    private static final int HEADER_SIZE = 5;
+
+    public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 16 * 1024 * 1024;
+
+    private final ValueSerializer delegate;
+
+    private final int threshold; // 超过这个字节数才压缩
+
+    private final int maxDecompressedSize; // 解压后允许的最大字节数，防止损坏的长度头部分配过大的数组
+
+    private final LZ4Compressor compressor;
+
+    private final LZ4FastDecompressor decompressor;
+
+    public Lz4ValueSerializer(ValueSerializer delegate, int threshold) {
+        this(delegate, threshold, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    public Lz4ValueSerializer(ValueSerializer delegate, int threshold, int maxDecompressedSize) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.maxDecompressedSize = maxDecompressedSize;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        byte[] raw = delegate.serialize(value);
+        if (raw.length > threshold) {
+            byte[] compressed = new byte[HEADER_SIZE + compressor.maxCompressedLength(raw.length)];
+            int compressedLength = compressor.compress(raw, 0, raw.length, compressed, HEADER_SIZE);
+            if (compressedLength < raw.length) {
+                compressed[0] = LZ4;
+                writeInt(compressed, 1, raw.length);
+                return Arrays.copyOf(compressed, HEADER_SIZE + compressedLength);
+            }
+        }
+        byte[] result = new byte[raw.length + 1];
+        result[0] = RAW;
+        System.arraycopy(raw, 0, result, 1, raw.length);
+        return result;
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> type) {
+        if (bytes.length == 0) {
+            throw new SerializationException("缓存值为空，缺少压缩标记");
+        }
+        switch (bytes[0]) {
+            case RAW:
+                return delegate.deserialize(bytes, 1, bytes.length - 1, type); // 跳过标记直接读取，不再拷贝
+            case LZ4:
+                if (bytes.length < HEADER_SIZE) {
+                    throw new SerializationException("LZ4 数据不完整");
+                }
+                int length = readInt(bytes, 1);
+                if (length < 0 || length > maxDecompressedSize) {
+                    throw new SerializationException("LZ4 原始长度不合法：" + length + "，最大 " + maxDecompressedSize);
+                }
+                byte[] raw;
+                try {
+                    raw = new byte[length];
+                    decompressor.decompress(bytes, HEADER_SIZE, raw, 0, length);
+                } catch (Exception | OutOfMemoryError e) {
+                    throw new SerializationException("LZ4 解压失败", e);
+                }
+                return delegate.deserialize(raw, type);
+            default:
+                throw new SerializationException("未知的压缩标记：" + bytes[0]);
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.cache.serializer;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 缓存值的序列化 SPI，由 RedisClient 的 get / set 使用
+ * 字符串不经过序列化器，始终按 UTF-8 原样存储，和 Lua 脚本、stringGet 保持互通
+ * 通过 cache.serializer.* 选择内置实现，也可以自行声明一个 ValueSerializer Bean 替换
+ */
+public interface ValueSerializer {
+
+    /**
+     * @param value 缓存的值，不为 null
+     * @return 序列化后的字节
+     */
+    byte[] serialize(Object value) throws SerializationException;
+
+    /**
+     * @param bytes 序列化后的字节，不为 null
+     * @param type  值的类型
+     * @return 反序列化后的值
+     */
+    <T> T deserialize(byte[] bytes, Class<T> type) throws SerializationException;
+
+    /**
+     * 从字节数组的一段反序列化，供外层序列化器（如 {@link Lz4ValueSerializer}）去掉头部后直接读取
+     * 默认拷贝出这一段再调用 {@link #deserialize(byte[], Class)}，实现类可以覆盖以避免拷贝
+     *
+     * @param offset 起始位置
+     * @param length 字节数
+     */
+    default <T> T deserialize(byte[] bytes, int offset, int length, Class<T> type) throws SerializationException {
+        if (offset == 0 && length == bytes.length) {
+            return deserialize(bytes, type);
+        }
+        byte[] range = new byte[length];
+        System.arraycopy(bytes, offset, range, 0, length);
+        return deserialize(range, type);
+    }
+}
@@ -1,12 +1,25 @@
 package com.github.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.codec.MarshallingCodec;
+import org.redisson.config.BaseConfig;
+import org.redisson.config.BaseMasterSlaveServersConfig;
+import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
+import org.redisson.config.ReadMode;
+import org.redisson.config.SentinelServersConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
+@Slf4j
 @Configuration
 public class RedissonConfig {
 
@@ -22,20 +35,175 @@ public class RedissonConfig {
     @Value("${spring.redis.database:0}")
     private int database;
 
+    @Value("${redisson.mode:single}")
+    private String mode; // single / sentinel / cluster，和 spring.redis 的拓扑保持一致
+
+    @Value("${spring.redis.cluster.nodes:}")
+    private List<String> clusterNodes; // host:port，cluster 模式使用
+
+    @Value("${spring.redis.sentinel.master:}")
+    private String sentinelMaster;
+
+    @Value("${spring.redis.sentinel.nodes:}")
+    private List<String> sentinelNodes; // host:port，sentinel 模式使用
+
+    @Value("${redisson.scanInterval:5000}")
+    private int scanInterval; // cluster / sentinel 模式下拓扑扫描间隔(毫秒)，发现主从切换和槽位迁移
+
+    @Value("${redisson.codec:string}")
+    private String codec; // string / json / marshalling(Redisson 默认)
+
+    @Value("${redisson.threads:16}")
+    private int threads; // 执行监听器、RTopic 回调等的线程数
+
+    @Value("${redisson.nettyThreads:32}")
+    private int nettyThreads; // Netty 事件循环线程数，所有连接共用
+
+    @Value("${redisson.connectionMinimumIdleSize:16}")
+    private int connectionMinimumIdleSize;
+
+    @Value("${redisson.connectionPoolSize:64}")
+    private int connectionPoolSize;
+
+    @Value("${redisson.subscriptionConnectionMinimumIdleSize:1}")
+    private int subscriptionConnectionMinimumIdleSize;
+
+    @Value("${redisson.subscriptionConnectionPoolSize:50}")
+    private int subscriptionConnectionPoolSize; // 锁等待、RTopic 使用的订阅连接
+
+    @Value("${redisson.subscriptionsPerConnection:5}")
+    private int subscriptionsPerConnection;
+
+    @Value("${redisson.connectTimeout:3000}")
+    private int connectTimeout; // 建立连接超时(毫秒)
+
+    @Value("${redisson.timeout:1000}")
+    private int timeout; // 命令响应超时(毫秒)
+
+    @Value("${redisson.retryAttempts:3}")
+    private int retryAttempts;
+
+    @Value("${redisson.retryInterval:500}")
+    private int retryInterval; // 重试间隔(毫秒)
+
+    @Value("${redisson.idleConnectionTimeout:10000}")
+    private int idleConnectionTimeout; // 超过最小空闲数的连接空闲多久后关闭(毫秒)
+
+    @Value("${redisson.pingConnectionInterval:30000}")
+    private int pingConnectionInterval; // 连接保活 PING 间隔(毫秒)，0 表示关闭
+
     @Bean
     public RedissonClient redissonClient() {
         Config config = new Config();
-        String redisUrl = String.format("redis://%s:%d", host, port);
-        
-        config.useSingleServer()
-              .setAddress(redisUrl)
-              .setDatabase(database);
-        
+        config.setCodec(codec())
+              .setThreads(threads)
+              .setNettyThreads(nettyThreads);
+
+        switch (mode) {
+            case "single":
+                useSingleServer(config);
+                break;
+            case "sentinel":
+                useSentinelServers(config);
+                break;
+            case "cluster":
+                useClusterServers(config);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的 redisson.mode：" + mode);
+        }
+
+        log.info("Redisson 初始化：mode={}，codec={}，连接池 {}~{}，订阅连接池 {}~{}，threads={}，nettyThreads={}",
+                mode, codec, connectionMinimumIdleSize, connectionPoolSize,
+                subscriptionConnectionMinimumIdleSize, subscriptionConnectionPoolSize, threads, nettyThreads);
+        return Redisson.create(config);
+    }
+
+    private void useSingleServer(Config config) {
+        applyCommon(config.useSingleServer()
+              .setAddress(address(host + ":" + port))
+              .setDatabase(database)
+              .setConnectionMinimumIdleSize(connectionMinimumIdleSize)
+              .setConnectionPoolSize(connectionPoolSize)
+              .setSubscriptionConnectionMinimumIdleSize(subscriptionConnectionMinimumIdleSize)
+              .setSubscriptionConnectionPoolSize(subscriptionConnectionPoolSize));
+    }
+
+    private void useSentinelServers(Config config) {
+        if (sentinelMaster.isEmpty() || sentinelNodes.isEmpty()) {
+            throw new IllegalArgumentException("sentinel 模式需要配置 spring.redis.sentinel.master 和 spring.redis.sentinel.nodes");
+        }
+        SentinelServersConfig serversConfig = config.useSentinelServers()
+              .setMasterName(sentinelMaster)
+              .setDatabase(database)
+              .setScanInterval(scanInterval);
+        sentinelNodes.forEach(node -> serversConfig.addSentinelAddress(address(node)));
+        applyMasterSlave(serversConfig);
+    }
+
+    private void useClusterServers(Config config) {
+        if (clusterNodes.isEmpty()) {
+            throw new IllegalArgumentException("cluster 模式需要配置 spring.redis.cluster.nodes");
+        }
+        ClusterServersConfig serversConfig = config.useClusterServers()
+              .setScanInterval(scanInterval);
+        clusterNodes.forEach(node -> serversConfig.addNodeAddress(address(node)));
+        applyMasterSlave(serversConfig);
+    }
+
+    /**
+     * 主从类拓扑的连接池按每个节点计算，只从主节点读写，从节点不额外建立大连接池
+     */
+    private void applyMasterSlave(BaseMasterSlaveServersConfig<?> serversConfig) {
+        applyCommon(serversConfig
+              .setReadMode(ReadMode.MASTER)
+              .setMasterConnectionMinimumIdleSize(connectionMinimumIdleSize)
+              .setMasterConnectionPoolSize(connectionPoolSize)
+              .setSlaveConnectionMinimumIdleSize(1)
+              .setSlaveConnectionPoolSize(connectionMinimumIdleSize)
+              .setSubscriptionConnectionMinimumIdleSize(subscriptionConnectionMinimumIdleSize)
+              .setSubscriptionConnectionPoolSize(subscriptionConnectionPoolSize));
+    }
+
+    /**
+     * 各种拓扑共用的超时、重试和连接保活配置
+     */
+    private void applyCommon(BaseConfig<?> serverConfig) {
+        serverConfig.setSubscriptionsPerConnection(subscriptionsPerConnection)
+              .setConnectTimeout(connectTimeout)
+              .setTimeout(timeout)
+              .setRetryAttempts(retryAttempts)
+              .setRetryInterval(retryInterval)
+              .setIdleConnectionTimeout(idleConnectionTimeout)
+              .setPingConnectionInterval(pingConnectionInterval)
+              .setKeepAlive(true)
+              .setTcpNoDelay(true);
+
         // 如果设置了密码，则添加密码
         if (password != null && !password.isEmpty()) {
-            config.useSingleServer().setPassword(password);
+            serverConfig.setPassword(password);
+        }
+    }
+
+    private static String address(String node) {
+        String trimmed = node.trim();
+        return trimmed.startsWith("redis://") || trimmed.startsWith("rediss://") ? trimmed : "redis://" + trimmed;
+    }
+
+    /**
+     * 默认的 MarshallingCodec 会带上 Java 类型信息，体积大且和 RedisClient 写入的纯字符串不互通，
+     * 缓存的值都是字符串，默认使用 StringCodec
+     */
+    private Codec codec() {
+        switch (codec) {
+            case "string":
+                return StringCodec.INSTANCE;
+            case "json":
+                return new JsonJacksonCodec();
+            case "marshalling":
+                return new MarshallingCodec();
+            default:
+                throw new IllegalArgumentException("不支持的 redisson.codec：" + codec);
         }
-        
-        return Redisson.create(config);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.github.config;
+
+import com.github.cache.serializer.JsonValueSerializer;
+import com.github.cache.serializer.KryoValueSerializer;
+import com.github.cache.serializer.Lz4ValueSerializer;
+import com.github.cache.serializer.ValueSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+public class SerializerConfig {
+
+    @Value("${cache.serializer.type:kryo}")
+    private String type; // json / kryo
+
+    @Value("${cache.serializer.compression:lz4}")
+    private String compression; // lz4 / none
+
+    @Value("${cache.serializer.compressThreshold:1024}")
+    private int compressThreshold; // 序列化结果超过这个字节数才压缩
+
+    @Value("${cache.serializer.maxDecompressedSize:16777216}")
+    private int maxDecompressedSize; // 解压后允许的最大字节数，超过时按损坏数据当作未命中
+
+    @Value("${cache.serializer.poolSize:64}")
+    private int poolSize; // Kryo 实例池的大小，超过时临时创建，用完丢弃
+
+    /**
+     * RedisClient 的 get / set 使用的序列化器，自行声明 ValueSerializer Bean 时不再创建
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ValueSerializer valueSerializer() {
+        ValueSerializer serializer;
+        switch (type) {
+            case "json":
+                serializer = new JsonValueSerializer();
+                break;
+            case "kryo":
+                serializer = new KryoValueSerializer(poolSize);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的 cache.serializer.type：" + type);
+        }
+
+        switch (compression) {
+            case "none":
+                break;
+            case "lz4":
+                serializer = new Lz4ValueSerializer(serializer, compressThreshold, maxDecompressedSize);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的 cache.serializer.compression：" + compression);
+        }
+
+        log.info("缓存序列化器：type={}，compression={}，compressThreshold={}", type, compression, compressThreshold);
+        return serializer;
+    }
+}
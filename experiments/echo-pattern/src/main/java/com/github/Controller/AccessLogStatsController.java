@@ -0,0 +1,49 @@
+package com.github.Controller;
+
+import com.github.accesslog.AccessLogDispatcher;
+import com.github.accesslog.AccessLogPolicyRegistry;
+import com.github.accesslog.EndpointLatencyRecorder;
+import com.github.bean.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/access-log/api/")
+public class AccessLogStatsController {
+
+    private final AccessLogDispatcher accessLogDispatcher;
+    private final AccessLogPolicyRegistry accessLogPolicyRegistry;
+    private final EndpointLatencyRecorder endpointLatencyRecorder;
+
+    /**
+     * 访问日志管道的队列长度、丢弃数和各 sink 的写入情况
+     */
+    @GetMapping("/stats")
+    public ApiResponse<Map<String, Object>> stats() {
+        return ApiResponse.success(accessLogDispatcher.stats());
+    }
+
+    /**
+     * 启动时解析好的各接口的访问日志策略
+     */
+    @GetMapping("/policies")
+    public ApiResponse<Map<String, Object>> policies() {
+        return ApiResponse.success(accessLogPolicyRegistry.stats());
+    }
+
+    /**
+     * 各接口的耗时分位数(毫秒)，按 p99 从高到低排列，用于找出慢接口
+     *
+     * @param limit 最多返回的接口数，0 表示全部
+     */
+    @GetMapping("/latency")
+    public ApiResponse<Map<String, Object>> latency(@RequestParam(defaultValue = "0") int limit) {
+        return ApiResponse.success(endpointLatencyRecorder.stats(limit));
+    }
+}
@@ -27,4 +27,13 @@ public class ApiAccessController {
         response.put("user", userVO);
         return ResponseEntity.ok(response);
     }
+
+    @ApiAccessLog(description = "高频接口：采样 1%，慢请求和错误全部保留，每秒最多 100 条",
+            sampleRate = 0.01, slowThreshold = 200, rateLimit = 100)
+    @PostMapping("/hot")
+    public ResponseEntity hot(@RequestBody UserVO userVO) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Hello, " + userVO.getName());
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.github.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志的异步管道：请求线程把记录放入有界无锁环形队列后立即返回，后台线程按批取出，依次写入各个 {@link AccessLogSink}
+ * 队列满时按 {@link OverflowPolicy} 处理，任何情况下请求线程都不会等待 sink，最多等待 blockTimeout（BLOCK 策略）。
+ * sink 变慢时只会让队列积压直至触发溢出策略，丢弃的数量见 {@link #stats()}。
+ */
+@Slf4j
+public class AccessLogDispatcher {
+
+    /**
+     * 队列满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃新记录，保留队列中的旧记录（默认）
+         */
+        DROP_NEWEST,
+        /**
+         * 丢弃队列中最早的记录，为新记录腾出位置
+         */
+        DROP_OLDEST,
+        /**
+         * 请求线程短暂等待（最多 blockTimeout），仍然满时丢弃新记录
+         */
+        BLOCK
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5); // 队列为空时后台线程的休眠时间
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50); // BLOCK 策略每次重试前的等待时间
+    private static final long SHUTDOWN_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(5); // 关闭时等待后台线程退出的时间，超时后中断再等待一次
+
+    private final AccessLogRingBuffer buffer;
+    private final List<AccessLogSink> sinks;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long blockTimeoutNanos;
+
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder drained = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final Map<String, SinkStats> sinkStats = new LinkedHashMap<>();
+
+    /**
+     * @param capacity           队列容量
+     * @param batchSize          每批最多写入的记录数
+     * @param overflowPolicy     队列满时的处理方式
+     * @param blockTimeoutMillis BLOCK 策略下请求线程最多等待的时间(毫秒)
+     * @param sinks              输出目标
+     */
+    public AccessLogDispatcher(int capacity, int batchSize, OverflowPolicy overflowPolicy, long blockTimeoutMillis,
+                               List<AccessLogSink> sinks) {
+        this.buffer = new AccessLogRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.sinks = new ArrayList<>(sinks);
+        for (AccessLogSink sink : sinks) {
+            sinkStats.put(sink.name(), new SinkStats());
+        }
+        this.drainer = new Thread(this::drainLoop, "access-log-drainer");
+        this.drainer.setDaemon(true);
+    }
+
+    public void start() {
+        drainer.start();
+        log.info("访问日志管道已启动：capacity={}，batchSize={}，overflowPolicy={}，sinks={}",
+                buffer.capacity(), batchSize, overflowPolicy, sinkStats.keySet());
+    }
+
+    /**
+     * 停止后台线程，把队列中剩余的记录写完后关闭各个 sink
+     * 后台线程可能卡在较慢的 sink 上，等待超时后中断它再等一次；只有确认它已经退出才在当前线程写完剩余记录并关闭 sink，
+     * 不会和仍在写入的后台线程同时调用 sink
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(drainer);
+        if (!awaitDrainer()) {
+            drainer.interrupt();
+            awaitDrainer();
+        }
+        if (drainer.isAlive()) {
+            log.warn("[AccessLogError] 访问日志后台线程未能退出，放弃写入队列中剩余的 {} 条记录", buffer.size());
+            return;
+        }
+        while (drainOnce() > 0) {
+            // 后台线程退出后把队列中剩余的记录写完
+        }
+        sinks.forEach(AccessLogSink::close);
+    }
+
+    /**
+     * @return 后台线程是否已经退出
+     */
+    private boolean awaitDrainer() {
+        try {
+            drainer.join(SHUTDOWN_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !drainer.isAlive();
+    }
+
+    /**
+     * 提交一条记录，请求线程调用
+     *
+     * @return 是否进入队列，false 表示按溢出策略被丢弃
+     */
+    public boolean submit(AccessLogRecord record) {
+        offered.increment();
+        if (buffer.offer(record)) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                // 取出一条最早的腾出位置，和其他生产者竞争时最多重试几次
+                for (int i = 0; i < 4; i++) {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                    if (buffer.offer(record)) {
+                        return true;
+                    }
+                }
+                break;
+            case BLOCK:
+                blocked.increment();
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while (System.nanoTime() - deadline < 0) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if (buffer.offer(record)) {
+                        return true;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (drainOnce() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (Throwable th) {
+                log.error("[AccessLogError] 访问日志后台线程异常", th);
+            }
+        }
+    }
+
+    /**
+     * 取出最多 batchSize 条记录写入各个 sink
+     *
+     * @return 本次写入的记录数
+     */
+    private int drainOnce() {
+        List<AccessLogRecord> batch = new ArrayList<>(Math.min(batchSize, buffer.size() + 1));
+        AccessLogRecord record;
+        while (batch.size() < batchSize && (record = buffer.poll()) != null) {
+            batch.add(record);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (AccessLogSink sink : sinks) {
+            SinkStats stats = sinkStats.get(sink.name());
+            long start = System.nanoTime();
+            try {
+                sink.write(batch);
+                stats.written.add(batch.size());
+            } catch (Exception e) {
+                stats.failed.add(batch.size());
+                log.warn("[AccessLogError] 访问日志写入 {} 失败，丢弃 {} 条", sink.name(), batch.size(), e);
+            } finally {
+                stats.nanos.add(System.nanoTime() - start);
+            }
+        }
+        drained.add(batch.size());
+        batches.increment();
+        return batch.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("capacity", buffer.capacity());
+        stats.put("queued", buffer.size());
+        stats.put("offered", offered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("blocked", blocked.sum());
+        stats.put("drained", drained.sum());
+        stats.put("batches", batches.sum());
+        Map<String, Object> sinks = new LinkedHashMap<>();
+        sinkStats.forEach((name, sinkStats) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("written", sinkStats.written.sum());
+            item.put("failed", sinkStats.failed.sum());
+            item.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(sinkStats.nanos.sum()));
+            sinks.put(name, item);
+        });
+        stats.put("sinks", sinks);
+        return stats;
+    }
+
+    private static class SinkStats {
+        private final LongAdder written = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder nanos = new LongAdder(); // 累计写入耗时
+    }
+}
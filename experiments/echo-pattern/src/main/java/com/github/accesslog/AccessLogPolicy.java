@@ -0,0 +1,145 @@
+package com.github.accesslog;
+
+import com.github.annotation.ApiAccessLog;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个接口的访问日志策略，由 {@link AccessLogPolicyRegistry} 在启动时按 HandlerMethod 解析一次，之后配置只读
+ * 是否记录一条访问日志分三步判断，请求时都不再读取注解：
+ * 1. 头部采样：进入 Handler 前按 sampleRate 决定（{@link #sample()}），只有被采样的请求捕获请求体、响应体；
+ * 2. 尾部采样：请求结束后，没有被采样的请求如果是慢请求或错误仍然保留（{@link #accept}），这些日志不带请求体、响应体，
+ *    否则为了少数保留的请求，每个请求都要复制一遍请求体和响应体，采样就省不下捕获的开销；
+ * 3. 限流：要记录的请求再从令牌桶取令牌，超过 rateLimit 的丢弃。
+ */
+public final class AccessLogPolicy {
+
+    /**
+     * 没有匹配到 Handler（如 404）时使用：记录日志，没有处理方法
+     */
+    public static final AccessLogPolicy DEFAULT = new AccessLogPolicy(true, "", null, 1.0, -1, true, null);
+
+    private final boolean enabled;
+    private final String description;
+    private final String handlerName;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final boolean keepErrors;
+    private final LogRateLimiter rateLimiter;
+
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder tailKept = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    private AccessLogPolicy(boolean enabled, String description, String handlerName, double sampleRate,
+                            long slowThresholdNanos, boolean keepErrors, LogRateLimiter rateLimiter) {
+        this.enabled = enabled;
+        this.description = description;
+        this.handlerName = handlerName;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.keepErrors = keepErrors;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * 读取 {@link ApiAccessLog} 注解，没有注解时记录日志
+     *
+     * @throws IllegalArgumentException 注解的采样、限流参数不合法，启动时即失败
+     */
+    public static AccessLogPolicy of(HandlerMethod handlerMethod) {
+        ApiAccessLog annotation = handlerMethod.getMethodAnnotation(ApiAccessLog.class);
+        String handlerName = handlerMethod.getBeanType().getName() + "#" + handlerMethod.getMethod().getName();
+        if (annotation == null) {
+            return new AccessLogPolicy(true, "", handlerName, 1.0, -1, true, null);
+        }
+        if (annotation.sampleRate() < 0 || annotation.sampleRate() > 1) {
+            throw new IllegalArgumentException("@ApiAccessLog.sampleRate 必须在 0 ~ 1 之间：" + handlerName);
+        }
+        if (annotation.rateLimit() < 0 || annotation.rateBurst() < 0) {
+            throw new IllegalArgumentException("@ApiAccessLog.rateLimit / rateBurst 不能为负数：" + handlerName);
+        }
+        long slowThresholdNanos = annotation.slowThreshold() < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(annotation.slowThreshold());
+        LogRateLimiter rateLimiter = null;
+        if (annotation.rateLimit() > 0) {
+            int burst = annotation.rateBurst() > 0 ? annotation.rateBurst() : annotation.rateLimit();
+            rateLimiter = new LogRateLimiter(annotation.rateLimit(), burst);
+        }
+        return new AccessLogPolicy(annotation.enable(), annotation.description(), handlerName, annotation.sampleRate(),
+                slowThresholdNanos, annotation.keepErrors(), rateLimiter);
+    }
+
+    /**
+     * @return 是否记录访问日志
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    /**
+     * @return 处理请求的方法，格式为 类名#方法名，DEFAULT 为 null
+     */
+    public String handlerName() {
+        return handlerName;
+    }
+
+    /**
+     * 头部采样，请求进入 Handler 前调用
+     *
+     * @return 是否被采样
+     */
+    public boolean sample() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * 请求结束后决定是否记录，依次应用尾部采样和限流
+     *
+     * @param sampled   头部采样的结果
+     * @param costNanos 耗时(纳秒)
+     * @param error     是否抛出异常或响应 5xx
+     * @return 是否记录
+     */
+    public boolean accept(boolean sampled, long costNanos, boolean error) {
+        if (!sampled) {
+            boolean keep = (keepErrors && error) || (slowThresholdNanos >= 0 && costNanos >= slowThresholdNanos);
+            if (!keep) {
+                sampledOut.increment();
+                return false;
+            }
+            tailKept.increment();
+        }
+        if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+            rateLimited.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return 配置和采样、限流丢弃的条数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("enabled", enabled);
+        item.put("description", description);
+        item.put("sampleRate", sampleRate);
+        item.put("slowThreshold", slowThresholdNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos));
+        item.put("keepErrors", keepErrors);
+        item.put("rateLimit", rateLimiter == null ? 0 : rateLimiter.rate());
+        item.put("rateBurst", rateLimiter == null ? 0 : rateLimiter.burst());
+        item.put("sampledOut", sampledOut.sum());
+        item.put("tailKept", tailKept.sum());
+        item.put("rateLimited", rateLimited.sum());
+        return item;
+    }
+}
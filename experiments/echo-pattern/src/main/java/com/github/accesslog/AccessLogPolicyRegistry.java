@@ -0,0 +1,88 @@
+package com.github.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 HandlerMethod 预先解析好的访问日志策略表
+ * 所有单例创建完成后（此时 RequestMappingHandlerMapping 已经注册完所有映射）遍历一次映射，为每个方法解析注解和类名、方法名，
+ * 之后的请求只做一次 HashMap 查找，不再读取注解或拼接字符串。
+ * 以 {@link Method} 为 key：每个请求拿到的 HandlerMethod 是重新创建的（解析 Bean 后），但其中的 Method 对象不变。
+ */
+@Slf4j
+public class AccessLogPolicyRegistry implements SmartInitializingSingleton {
+
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMappings;
+
+    private volatile Map<Method, AccessLogPolicy> policies = Collections.emptyMap();
+
+    /**
+     * 启动后动态注册的映射，第一次请求时解析（策略中有限流状态，需要复用同一个实例）
+     */
+    private final ConcurrentHashMap<Method, AccessLogPolicy> latePolicies = new ConcurrentHashMap<>();
+
+    public AccessLogPolicyRegistry(ObjectProvider<RequestMappingHandlerMapping> handlerMappings) {
+        this.handlerMappings = handlerMappings;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<HandlerMethod> handlerMethods = new ArrayList<>();
+        handlerMappings.orderedStream().forEach(mapping -> handlerMethods.addAll(mapping.getHandlerMethods().values()));
+        register(handlerMethods);
+    }
+
+    /**
+     * 解析并替换整张策略表
+     */
+    public void register(Collection<HandlerMethod> handlerMethods) {
+        Map<Method, AccessLogPolicy> table = new HashMap<>();
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            table.putIfAbsent(handlerMethod.getMethod(), AccessLogPolicy.of(handlerMethod));
+        }
+        policies = Collections.unmodifiableMap(table);
+        log.info("访问日志策略解析完成，共 {} 个接口", table.size());
+    }
+
+    /**
+     * @param handlerMethod 处理请求的方法，没有匹配到 Handler 时为 null
+     * @return 访问日志策略
+     */
+    public AccessLogPolicy policy(HandlerMethod handlerMethod) {
+        if (handlerMethod == null) {
+            return AccessLogPolicy.DEFAULT;
+        }
+        AccessLogPolicy policy = policies.get(handlerMethod.getMethod());
+        if (policy != null) {
+            return policy;
+        }
+        // 启动后动态注册的映射不在表中
+        return latePolicies.computeIfAbsent(handlerMethod.getMethod(), method -> AccessLogPolicy.of(handlerMethod));
+    }
+
+    /**
+     * @return 处理方法 -> 是否记录访问日志、描述、采样和限流配置及丢弃的条数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<AccessLogPolicy> all = new ArrayList<>(policies.values());
+        all.addAll(latePolicies.values());
+        all.stream()
+                .sorted((a, b) -> a.handlerName().compareTo(b.handlerName()))
+                .forEach(policy -> stats.put(policy.handlerName(), policy.stats()));
+        return stats;
+    }
+}
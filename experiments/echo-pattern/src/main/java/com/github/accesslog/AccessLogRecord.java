@@ -0,0 +1,84 @@
+package com.github.accesslog;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 一次 API 访问的结构化记录
+ * 请求线程只负责填充字段，格式化都由后台线程在写入 {@link AccessLogSink} 时完成
+ */
+@Data
+public class AccessLogRecord {
+
+    /**
+     * 请求开始时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 请求方法
+     */
+    private String method;
+
+    /**
+     * 请求 URI
+     */
+    private String uri;
+
+    /**
+     * 耗时(纳秒)，System.nanoTime 测量
+     */
+    private long costNanos;
+
+    /**
+     * 响应状态码
+     */
+    private int status;
+
+    /**
+     * 请求参数
+     */
+    private Map<String, String> queryString;
+
+    /**
+     * 请求体
+     */
+    private String requestBody;
+
+    /**
+     * 响应体，没有开启响应体捕获（access-log.response.capture）时为 null
+     */
+    private String responseBody;
+
+    /**
+     * 处理请求的方法，格式为 类名#方法名，未匹配到 Handler 时为 null
+     */
+    private String handler;
+
+    /**
+     * 处理请求时抛出的异常
+     */
+    private Throwable exception;
+
+    /**
+     * @return 一行文本格式的访问日志，日志和 WebSocket 输出使用
+     */
+    public String toLogLine() {
+        StringBuilder line = new StringBuilder(128)
+                .append("[AccessLog][耗时: ").append(costNanos / 1000 / 1000.0).append("ms]")
+                .append('[').append(method).append("][").append(uri).append("][").append(status).append(']')
+                .append("[请求参数: ").append(queryString).append(']')
+                .append("[请求体: ").append(requestBody).append(']');
+        if (responseBody != null) {
+            line.append("[响应体: ").append(responseBody).append(']');
+        }
+        if (handler != null) {
+            line.append("[执行方法: ").append(handler).append(']');
+        }
+        if (exception != null) {
+            line.append("[异常: ").append(exception.getMessage()).append(']');
+        }
+        return line.toString();
+    }
+}
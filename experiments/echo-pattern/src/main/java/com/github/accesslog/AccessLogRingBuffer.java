@@ -0,0 +1,90 @@
+package com.github.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列（多生产者多消费者）
+ * 每个槽位带一个序号：序号等于写入位置时可写，等于写入位置 + 1 时可读，读完后加上容量留给下一轮写入。
+ * 生产者和消费者只在各自的位置上 CAS，队列满时 offer 立即返回 false，由调用方决定丢弃还是等待。
+ */
+public class AccessLogRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<AccessLogRecord> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // 下一个写入位置
+    private final AtomicLong head = new AtomicLong(); // 下一个读取位置
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public AccessLogRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity 不能小于 2：" + capacity);
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return 是否写入成功，队列已满时返回 false
+     */
+    public boolean offer(AccessLogRecord record) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, record);
+                    sequences.set(index, position + 1); // 写入完成后才对消费者可见
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // 这个槽位上一轮的记录还没被取走，队列已满
+            }
+            // diff > 0：其他生产者已经占用了这个位置，重新读取 tail
+        }
+    }
+
+    /**
+     * @return 最早写入的记录，队列为空时返回 null
+     */
+    public AccessLogRecord poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    AccessLogRecord record = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.set(index, position + capacity); // 留给下一轮写入
+                    return record;
+                }
+            } else if (diff < 0) {
+                return null; // 生产者还没有写到这里，队列为空
+            }
+        }
+    }
+
+    /**
+     * @return 当前的记录数（近似值）
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
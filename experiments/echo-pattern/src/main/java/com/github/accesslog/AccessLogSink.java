@@ -0,0 +1,27 @@
+package com.github.accesslog;
+
+import java.util.List;
+
+/**
+ * 访问日志的输出目标，由 {@link AccessLogDispatcher} 的后台线程按批调用，不会运行在请求线程上
+ */
+public interface AccessLogSink {
+
+    /**
+     * @return 名称，用于统计和日志
+     */
+    String name();
+
+    /**
+     * 写入一批记录，抛出异常时这一批计为失败，不会重试
+     *
+     * @param batch 按写入顺序排列的记录
+     */
+    void write(List<AccessLogRecord> batch) throws Exception;
+
+    /**
+     * 应用关闭时调用，释放文件句柄等资源
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.accesslog;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按接口统计的耗时分布，每个 HandlerMethod 一个 HdrHistogram，由 ApiAccessLogFilter 在请求线程上记录（纳秒）
+ * 与访问日志是否记录、是否被管道丢弃无关，每个匹配到 Handler 的请求都会计入；没有匹配到 Handler 的请求（如 404）统一计入 {@link #UNMATCHED}，
+ * 不按 URI 区分，接口数量就是直方图数量的上限。
+ * 统计从启动开始累计，p50 / p99 / p999 的相对误差由 significantDigits 决定（2 表示 1%）。
+ */
+public class EndpointLatencyRecorder {
+
+    public static final String UNMATCHED = "UNMATCHED";
+
+    private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1); // 低于 1 微秒的差别不区分
+
+    private final long highestNanos;
+    private final int significantDigits;
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @param highestMillis     可记录的最大耗时(毫秒)，超过的按最大值记录
+     * @param significantDigits 有效数字位数，1 ~ 5
+     */
+    public EndpointLatencyRecorder(long highestMillis, int significantDigits) {
+        this.highestNanos = TimeUnit.MILLISECONDS.toNanos(highestMillis);
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * @param handler 处理请求的方法（类名#方法名），null 表示没有匹配到 Handler
+     * @param nanos   耗时(纳秒)
+     */
+    public void record(String handler, long nanos) {
+        String key = handler != null ? handler : UNMATCHED;
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new ConcurrentHistogram(LOWEST_NANOS, highestNanos, significantDigits));
+        }
+        histogram.recordValue(Math.min(Math.max(nanos, 0), highestNanos));
+    }
+
+    /**
+     * @param limit 最多返回的接口数，按 p99 从高到低，不大于 0 时返回全部
+     * @return 各接口的请求数和耗时分位数(毫秒)
+     */
+    public Map<String, Object> stats(int limit) {
+        List<Map<String, Object>> endpoints = new ArrayList<>(histograms.size());
+        long footprint = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram snapshot = entry.getValue().copy();
+            footprint += snapshot.getEstimatedFootprintInBytes();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("handler", entry.getKey());
+            item.put("count", snapshot.getTotalCount());
+            item.put("mean", millis(snapshot.getMean()));
+            item.put("p50", millis(snapshot.getValueAtPercentile(50)));
+            item.put("p90", millis(snapshot.getValueAtPercentile(90)));
+            item.put("p99", millis(snapshot.getValueAtPercentile(99)));
+            item.put("p999", millis(snapshot.getValueAtPercentile(99.9)));
+            item.put("max", millis(snapshot.getMaxValue()));
+            endpoints.add(item);
+        }
+        endpoints.sort(Comparator.comparingDouble((Map<String, Object> item) -> (Double) item.get("p99")).reversed());
+        if (limit > 0 && endpoints.size() > limit) {
+            endpoints = endpoints.subList(0, limit);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("unit", "ms");
+        stats.put("significantDigits", significantDigits);
+        stats.put("histograms", histograms.size());
+        stats.put("footprintBytes", footprint);
+        stats.put("endpoints", endpoints);
+        return stats;
+    }
+
+    /**
+     * 纳秒转为毫秒，保留 3 位小数（微秒）
+     */
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.accesslog;
+
+import cn.hutool.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 以 JSON Lines 格式追加写入文件，每批写完 flush 一次
+ */
+public class FileAccessLogSink implements AccessLogSink {
+
+    private final Path path;
+    private final Writer writer;
+
+    public FileAccessLogSink(String path) throws IOException {
+        this.path = Paths.get(path);
+        Path parent = this.path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = new BufferedWriter(Files.newBufferedWriter(this.path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void write(List<AccessLogRecord> batch) throws IOException {
+        for (AccessLogRecord record : batch) {
+            writer.write(toJson(record));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private String toJson(AccessLogRecord record) {
+        JSONObject json = new JSONObject();
+        json.set("timestamp", record.getTimestamp());
+        json.set("method", record.getMethod());
+        json.set("uri", record.getUri());
+        json.set("costNanos", record.getCostNanos());
+        json.set("status", record.getStatus());
+        json.set("queryString", record.getQueryString());
+        json.set("requestBody", record.getRequestBody());
+        json.set("responseBody", record.getResponseBody());
+        json.set("handler", record.getHandler());
+        if (record.getException() != null) {
+            json.set("exception", record.getException().getClass().getName() + ": " + record.getException().getMessage());
+        }
+        return json.toString();
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // 关闭时的异常不影响应用退出
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileAccessLogSink(" + path.toAbsolutePath() + ")";
+    }
+}
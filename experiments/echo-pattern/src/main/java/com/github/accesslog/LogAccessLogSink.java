@@ -0,0 +1,31 @@
+package com.github.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 输出到名为 ACCESS_LOG 的 logger，每条记录一行
+ * 该 logger 在 logback-spring.xml 中关闭了 additivity，不会再经过 WebSocketLogAppender 逐条广播
+ */
+public class LogAccessLogSink implements AccessLogSink {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public void write(List<AccessLogRecord> batch) {
+        for (AccessLogRecord record : batch) {
+            if (record.getException() != null) {
+                ACCESS_LOG.error(record.toLogLine(), record.getException());
+            } else {
+                ACCESS_LOG.info(record.toLogLine());
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.accesslog;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个接口的访问日志令牌桶：每秒补充 rate 个令牌，最多积攒 burst 个，拿不到令牌的记录直接丢弃
+ * 用 GCRA 实现（与令牌桶等价）：只保存下一个令牌的理论到达时间，一次 CAS 完成取令牌，请求线程不加锁、不等待。
+ */
+public class LogRateLimiter {
+
+    private final int rate;
+    private final int burst;
+
+    /**
+     * 每个令牌的间隔(纳秒)
+     */
+    private final long intervalNanos;
+
+    /**
+     * 桶从空到满的时间(纳秒)，理论到达时间最多领先当前时间这么多
+     */
+    private final long capacityNanos;
+
+    /**
+     * 理论到达时间（nanoTime），不早于它才有令牌
+     */
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param rate  每秒补充的令牌数
+     * @param burst 桶的容量
+     */
+    public LogRateLimiter(int rate, int burst) {
+        this.rate = rate;
+        this.burst = burst;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        this.capacityNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - capacityNanos); // 初始为满桶
+    }
+
+    /**
+     * @return 是否拿到令牌
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            // 桶满时不再积攒，理论到达时间最早为 now - capacity
+            long next = Math.max(arrival, now - capacityNanos) + intervalNanos;
+            if (next - now > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    public int rate() {
+        return rate;
+    }
+
+    public int burst() {
+        return burst;
+    }
+}
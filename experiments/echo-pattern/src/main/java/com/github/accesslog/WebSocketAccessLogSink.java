@@ -0,0 +1,41 @@
+package com.github.accesslog;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+/**
+ * 广播到 echoPattern.html 订阅的 /topic/logs，一批记录合并为一条 STOMP 消息，每条记录一行
+ */
+public class WebSocketAccessLogSink implements AccessLogSink {
+
+    private static final String DESTINATION = "/topic/logs";
+
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    public WebSocketAccessLogSink(ObjectProvider<SimpMessagingTemplate> messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "websocket";
+    }
+
+    @Override
+    public void write(List<AccessLogRecord> batch) {
+        SimpMessagingTemplate template = messagingTemplate.getIfAvailable();
+        if (template == null) {
+            return; // 没有启用 WebSocket
+        }
+        StringBuilder message = new StringBuilder(batch.size() * 128);
+        for (AccessLogRecord record : batch) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(record.toLogLine());
+        }
+        template.convertAndSend(DESTINATION, message.toString());
+    }
+}
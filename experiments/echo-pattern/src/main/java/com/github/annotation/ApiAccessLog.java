@@ -25,4 +25,30 @@ public @interface ApiAccessLog {
     * 描述信息
     * */
     String description() default "";
+
+    /**
+     * 采样率，0 ~ 1，请求进入 Handler 前按这个概率决定是否记录，1 表示全部记录
+     */
+    double sampleRate() default 1.0;
+
+    /**
+     * 尾部采样：耗时不低于这个值(毫秒)的请求即使没有被采样也记录，-1 表示不按耗时保留
+     * 没有被采样的请求不捕获请求体、响应体，尾部采样保留的日志只有请求行、参数、状态和耗时
+     */
+    long slowThreshold() default -1;
+
+    /**
+     * 尾部采样：抛出异常或响应 5xx 的请求即使没有被采样也记录（不带请求体、响应体）
+     */
+    boolean keepErrors() default true;
+
+    /**
+     * 每秒最多记录的访问日志条数（令牌桶），对采样后要记录的请求生效，0 表示不限制
+     */
+    int rateLimit() default 0;
+
+    /**
+     * 令牌桶容量，即允许的突发条数，0 表示与 rateLimit 相同
+     */
+    int rateBurst() default 0;
 }
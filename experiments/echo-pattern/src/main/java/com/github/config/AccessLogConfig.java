@@ -0,0 +1,135 @@
+package com.github.config;
+
+import com.github.accesslog.AccessLogDispatcher;
+import com.github.accesslog.AccessLogPolicyRegistry;
+import com.github.accesslog.AccessLogSink;
+import com.github.accesslog.EndpointLatencyRecorder;
+import com.github.accesslog.FileAccessLogSink;
+import com.github.accesslog.LogAccessLogSink;
+import com.github.accesslog.WebSocketAccessLogSink;
+import com.github.filter.StaticResourceMatcher;
+import com.github.wrapper.BodyBufferPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class AccessLogConfig {
+
+    @Value("${access-log.capacity:8192}")
+    private int capacity; // 队列容量，向上取整为 2 的幂
+
+    @Value("${access-log.batchSize:256}")
+    private int batchSize; // 每批最多写入的记录数
+
+    @Value("${access-log.overflowPolicy:DROP_NEWEST}")
+    private AccessLogDispatcher.OverflowPolicy overflowPolicy; // DROP_NEWEST / DROP_OLDEST / BLOCK
+
+    @Value("${access-log.blockTimeout:5}")
+    private long blockTimeout; // BLOCK 策略下请求线程最多等待的时间(毫秒)
+
+    @Value("${access-log.sinks:log,websocket}")
+    private List<String> sinkNames; // log / file / websocket
+
+    @Value("${access-log.file.path:logs/access.log}")
+    private String filePath;
+
+    @Value("${access-log.body.maxCapture:4096}")
+    private int maxCapture; // 请求体最多捕获的字节数，超过的部分照常交给 Handler，日志中截断
+
+    @Value("${access-log.body.poolSize:256}")
+    private int bodyPoolSize; // 捕获缓冲区的池大小，一般不小于并发请求数
+
+    @Value("${access-log.response.maxCapture:2048}")
+    private int responseMaxCapture; // 响应体最多捕获的字节数，只在 access-log.response.capture=true 时生效
+
+    @Value("${access-log.response.poolSize:256}")
+    private int responsePoolSize;
+
+    @Value("${access-log.latency.highest:60000}")
+    private long latencyHighest; // 耗时分布可记录的最大耗时(毫秒)，超过的按最大值记录
+
+    @Value("${access-log.latency.significantDigits:2}")
+    private int latencySignificantDigits; // 分位数的有效数字位数，2 表示相对误差 1%
+
+    @Value("${access-log.static.prefixes:/css/,/js/,/images/,/static/,/assets/}")
+    private List<String> staticPrefixes; // 以这些前缀开头的请求视为静态资源，不记录访问日志
+
+    @Value("${access-log.static.suffixes:.css,.js,.png,.jpg,.jpeg,.gif,.svg,.ico,.woff,.woff2,.ttf,.eot,.map}")
+    private List<String> staticSuffixes; // 以这些后缀结尾的请求视为静态资源
+
+    /**
+     * 按 HandlerMethod 预先解析的访问日志策略，ApiAccessLogInterceptor 使用
+     */
+    @Bean
+    public AccessLogPolicyRegistry accessLogPolicyRegistry(ObjectProvider<RequestMappingHandlerMapping> handlerMappings) {
+        return new AccessLogPolicyRegistry(handlerMappings);
+    }
+
+    /**
+     * ApiAccessLogFilter 判断静态资源使用
+     */
+    @Bean
+    public StaticResourceMatcher staticResourceMatcher() {
+        return new StaticResourceMatcher(staticPrefixes, staticSuffixes);
+    }
+
+    /**
+     * CacheRequestBodyFilter 捕获请求体使用的缓冲区
+     */
+    @Bean
+    public BodyBufferPool bodyBufferPool() {
+        return new BodyBufferPool(maxCapture, bodyPoolSize);
+    }
+
+    /**
+     * ApiAccessLogFilter 捕获响应体使用的缓冲区，默认不捕获响应体
+     */
+    @Bean
+    @ConditionalOnProperty(name = "access-log.response.capture", havingValue = "true")
+    public BodyBufferPool responseBodyBufferPool() {
+        return new BodyBufferPool(responseMaxCapture, responsePoolSize);
+    }
+
+    /**
+     * ApiAccessLogFilter 按接口记录的耗时分布
+     */
+    @Bean
+    public EndpointLatencyRecorder endpointLatencyRecorder() {
+        return new EndpointLatencyRecorder(latencyHighest, latencySignificantDigits);
+    }
+
+    /**
+     * ApiAccessLogFilter 使用的异步访问日志管道
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public AccessLogDispatcher accessLogDispatcher(ObjectProvider<SimpMessagingTemplate> messagingTemplate) throws IOException {
+        List<AccessLogSink> sinks = new ArrayList<>();
+        for (String name : sinkNames) {
+            switch (name.trim()) {
+                case "log":
+                    sinks.add(new LogAccessLogSink());
+                    break;
+                case "file":
+                    sinks.add(new FileAccessLogSink(filePath));
+                    break;
+                case "websocket":
+                    sinks.add(new WebSocketAccessLogSink(messagingTemplate));
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的 access-log.sinks：" + name);
+            }
+        }
+        return new AccessLogDispatcher(capacity, batchSize, overflowPolicy, blockTimeout, sinks);
+    }
+}
@@ -1,31 +1,48 @@
 package com.github.config;
 
+import com.github.accesslog.AccessLogDispatcher;
+import com.github.accesslog.AccessLogPolicyRegistry;
+import com.github.accesslog.EndpointLatencyRecorder;
 import com.github.filter.ApiAccessLogFilter;
 import com.github.filter.CacheRequestBodyFilter;
+import com.github.filter.StaticResourceMatcher;
 import com.github.interceptor.ApiAccessLogInterceptor;
+import com.github.wrapper.BodyBufferPool;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.annotation.Resource;
 import javax.servlet.Filter;
 
 @Slf4j
 @AutoConfiguration
 public class WebAutoConfiguration implements WebMvcConfigurer {
 
+    @Resource
+    private AccessLogPolicyRegistry accessLogPolicyRegistry;
+
     @Bean
-    public FilterRegistrationBean<CacheRequestBodyFilter> requestBodyCacheFilter() {
+    public FilterRegistrationBean<CacheRequestBodyFilter> requestBodyCacheFilter(
+            @Qualifier("bodyBufferPool") BodyBufferPool bodyBufferPool) {
         log.info("注册 CacheRequestBodyFilter");
-        return createFilterBean(new CacheRequestBodyFilter(), 1);
+        return createFilterBean(new CacheRequestBodyFilter(bodyBufferPool), 1);
     }
 
     @Bean
-    public FilterRegistrationBean<ApiAccessLogFilter> apiAccessLogFilter() {
+    public FilterRegistrationBean<ApiAccessLogFilter> apiAccessLogFilter(AccessLogDispatcher accessLogDispatcher,
+                                                                         StaticResourceMatcher staticResourceMatcher,
+                                                                         EndpointLatencyRecorder endpointLatencyRecorder,
+                                                                         @Qualifier("responseBodyBufferPool")
+                                                                         ObjectProvider<BodyBufferPool> responseBodyBufferPool) {
         log.info("注册 ApiAccessLogFilter");
-        return createFilterBean(new ApiAccessLogFilter(), 2);
+        return createFilterBean(new ApiAccessLogFilter(accessLogDispatcher, staticResourceMatcher,
+                endpointLatencyRecorder, responseBodyBufferPool.getIfAvailable()), 2);
     }
 
 
@@ -38,6 +55,6 @@ public class WebAutoConfiguration implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         log.info("注册 ApiAccessLogInterceptor");
-        registry.addInterceptor(new ApiAccessLogInterceptor());
+        registry.addInterceptor(new ApiAccessLogInterceptor(accessLogPolicyRegistry));
     }
 }
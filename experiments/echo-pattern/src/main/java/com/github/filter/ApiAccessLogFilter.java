@@ -1,26 +1,43 @@
 package com.github.filter;
 
-import cn.hutool.core.date.LocalDateTimeUtil;
-import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.extra.servlet.ServletUtil;
-import com.github.annotation.ApiAccessLog;
+import com.github.accesslog.AccessLogDispatcher;
+import com.github.accesslog.AccessLogPolicy;
+import com.github.accesslog.AccessLogRecord;
+import com.github.accesslog.EndpointLatencyRecorder;
+import com.github.interceptor.ApiAccessLogInterceptor;
+import com.github.wrapper.BodyBufferPool;
+import com.github.wrapper.TeeRequestBodyWrapper;
+import com.github.wrapper.TeeResponseBodyWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.util.WebUtils;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
 @Slf4j
 public class ApiAccessLogFilter extends OncePerRequestFilter {
 
-    public static final String ATTRIBUTE_HANDLER_METHOD = "HANDLER_METHOD";
+    private final AccessLogDispatcher accessLogDispatcher;
+    private final StaticResourceMatcher staticResourceMatcher;
+    private final EndpointLatencyRecorder latencyRecorder;
+    private final BodyBufferPool responseBufferPool;
+
+    /**
+     * @param responseBufferPool 响应体捕获使用的缓冲区，为 null 时不捕获响应体
+     */
+    public ApiAccessLogFilter(AccessLogDispatcher accessLogDispatcher, StaticResourceMatcher staticResourceMatcher,
+                              EndpointLatencyRecorder latencyRecorder, BodyBufferPool responseBufferPool) {
+        this.accessLogDispatcher = accessLogDispatcher;
+        this.staticResourceMatcher = staticResourceMatcher;
+        this.latencyRecorder = latencyRecorder;
+        this.responseBufferPool = responseBufferPool;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -42,42 +59,63 @@ public class ApiAccessLogFilter extends OncePerRequestFilter {
     private void processApiRequest(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        LocalDateTime beginTime = LocalDateTime.now();
-        Map<String, String> queryString = ServletUtil.getParamMap(request);
-        String requestBody = ServletUtil.getBody(request);
+        long timestamp = System.currentTimeMillis();
+        long beginNanos = System.nanoTime();
+        Map<String, String> queryString = ServletUtil.getParamMap(request); // 包括 form 表单的字段，表单请求不再单独捕获请求体
+        TeeResponseBodyWrapper responseWrapper = responseBufferPool != null
+                ? new TeeResponseBodyWrapper(response, responseBufferPool) : null;
+        HttpServletResponse target = responseWrapper != null ? responseWrapper : response;
 
         try {
             // 执行下一个过滤器
-            filterChain.doFilter(request, response);
+            filterChain.doFilter(request, target);
             // 成功处理，记录正常日志
-            createApiAccessLog(request, beginTime, queryString, requestBody, null);
+            createApiAccessLog(request, target, timestamp, beginNanos, queryString, null);
         } catch (Exception ex) {
             // 异常处理，记录异常日志
-            createApiAccessLog(request, beginTime, queryString, requestBody, ex);
+            createApiAccessLog(request, target, timestamp, beginNanos, queryString, ex);
             throw ex;
+        } finally {
+            if (responseWrapper != null) {
+                responseWrapper.release();
+            }
         }
     }
 
     /**
      * 创建 API 访问日志
      */
-    private boolean createApiAccessLog(HttpServletRequest request, LocalDateTime beginTime,
-                                       Map<String, String> queryString, String requestBody, Exception ex) {
+    private boolean createApiAccessLog(HttpServletRequest request, HttpServletResponse response, long timestamp,
+                                       long beginNanos, Map<String, String> queryString, Exception ex) {
+        long costNanos = System.nanoTime() - beginNanos;
         try {
-            HandlerMethod handlerMethod = (HandlerMethod) request.getAttribute(ATTRIBUTE_HANDLER_METHOD);
+            AccessLogPolicy policy = policy(request);
+
+            // 耗时分布与是否记录日志无关，每个请求都计入
+            latencyRecorder.record(policy.handlerName(), costNanos);
 
             // 检查是否需要记录日志
-            if (!shouldRecordLog(handlerMethod)) {
+            if (!policy.enabled()) {
+                return false;
+            }
+
+            // 异常会继续抛给容器，最终响应 500
+            int status = ex != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+
+            // 尾部采样和限流，没有经过拦截器（没有匹配到 Handler）的请求视为已采样
+            boolean sampled = !Boolean.FALSE.equals(request.getAttribute(ApiAccessLogInterceptor.ATTRIBUTE_ACCESS_LOG_SAMPLED));
+            if (!policy.accept(sampled, costNanos, status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR)) {
                 return false;
             }
 
             // 获取请求基本信息
             String method = request.getMethod();
             String uri = request.getRequestURI();
-            long costTime = LocalDateTimeUtil.between(beginTime, LocalDateTime.now(), ChronoUnit.MILLIS);
+            String requestBody = capturedBody(request);
+            String responseBody = capturedBody(response);
 
             // 记录访问日志
-            logAccessInfo(method, uri, costTime, queryString, requestBody, handlerMethod, ex);
+            logAccessInfo(timestamp, method, uri, costNanos, status, queryString, requestBody, responseBody, policy, ex);
 
         } catch (Throwable th) {
             log.error("[AccessLogError][url({})] 记录访问日志时发生异常: {}", request.getRequestURI(), th.getMessage(), th);
@@ -86,73 +124,59 @@ public class ApiAccessLogFilter extends OncePerRequestFilter {
     }
 
     /**
-     * 判断是否需要记录日志
+     * Handler 读取请求体时捕获的前 N 个字节，没有经过 CacheRequestBodyFilter 包装（如 GET 请求、form 表单）时为 null
      */
-    private boolean shouldRecordLog(HandlerMethod handlerMethod) {
-        if (handlerMethod == null) {
-            return true; // 默认记录
-        }
+    private String capturedBody(HttpServletRequest request) {
+        TeeRequestBodyWrapper wrapper = WebUtils.getNativeRequest(request, TeeRequestBodyWrapper.class);
+        return wrapper == null ? null : wrapper.capturedBody();
+    }
 
-        ApiAccessLog accessLogAnnotation = handlerMethod.getMethodAnnotation(ApiAccessLog.class);
-        return accessLogAnnotation == null || BooleanUtil.isTrue(accessLogAnnotation.enable());
+    /**
+     * Handler 写出响应时捕获的前 N 个字节，没有开启响应体捕获时为 null
+     */
+    private String capturedBody(HttpServletResponse response) {
+        TeeResponseBodyWrapper wrapper = WebUtils.getNativeResponse(response, TeeResponseBodyWrapper.class);
+        return wrapper == null ? null : wrapper.capturedBody();
     }
 
     /**
-     * 记录访问信息
+     * 拦截器放入的访问日志策略（启动时已解析好），没有匹配到 Handler 时默认记录
      */
-    private void logAccessInfo(String method, String uri, long costTime,
-                              Map<String, String> queryString, String requestBody,
-                              HandlerMethod handlerMethod, Exception ex) {
-
-        // 记录基本请求信息
-        log.info("[AccessLog][耗时: {}ms][{}][{}]", costTime, method, uri);
-        log.info("[AccessLog][请求参数: {}]", queryString);
-        log.info("[AccessLog][请求体: {}]", requestBody);
-
-        // 记录处理方法信息
-        if (handlerMethod != null) {
-            String className = handlerMethod.getBean().getClass().getName();
-            String methodName = handlerMethod.getMethod().getName();
-            log.info("[AccessLog][执行方法: {}#{}]", className, methodName);
-        }
+    private AccessLogPolicy policy(HttpServletRequest request) {
+        AccessLogPolicy policy = (AccessLogPolicy) request.getAttribute(ApiAccessLogInterceptor.ATTRIBUTE_ACCESS_LOG_POLICY);
+        return policy != null ? policy : AccessLogPolicy.DEFAULT;
+    }
 
-        // 记录异常信息
-        if (ex != null) {
-            log.error("[AccessLog][异常: {}]", ex.getMessage(), ex);
-        }
+    /**
+     * 记录访问信息
+     * 只组装结构化记录并放入异步管道，格式化和输出（日志、文件、WebSocket）都在后台线程完成
+     */
+    private void logAccessInfo(long timestamp, String method, String uri, long costNanos, int status,
+                              Map<String, String> queryString, String requestBody, String responseBody,
+                              AccessLogPolicy policy, Exception ex) {
+        AccessLogRecord record = new AccessLogRecord();
+        record.setTimestamp(timestamp);
+        record.setMethod(method);
+        record.setUri(uri);
+        record.setCostNanos(costNanos);
+        record.setStatus(status);
+        record.setQueryString(queryString);
+        record.setRequestBody(requestBody);
+        record.setResponseBody(responseBody);
+        record.setHandler(policy.handlerName());
+        record.setException(ex);
+
+        // 队列满时按溢出策略丢弃，不阻塞请求
+        accessLogDispatcher.submit(record);
     }
 
     /**
-     * 判断是否为静态资源
+     * 判断是否为静态资源，规则见 access-log.static.*
      */
     private boolean isStaticResource(HttpServletRequest request) {
         if (request == null) {
             return false;
         }
-
-        String uri = request.getRequestURI();
-        if (uri == null) {
-            return false;
-        }
-
-        // 判断常见的静态资源类型
-        return uri.endsWith(".css") ||
-               uri.endsWith(".js") ||
-               uri.endsWith(".png") ||
-               uri.endsWith(".jpg") ||
-               uri.endsWith(".jpeg") ||
-               uri.endsWith(".gif") ||
-               uri.endsWith(".svg") ||
-               uri.endsWith(".ico") ||
-               uri.endsWith(".woff") ||
-               uri.endsWith(".woff2") ||
-               uri.endsWith(".ttf") ||
-               uri.endsWith(".eot") ||
-               uri.endsWith(".map") ||
-               uri.startsWith("/css/") ||
-               uri.startsWith("/js/") ||
-               uri.startsWith("/images/") ||
-               uri.startsWith("/static/") ||
-               uri.startsWith("/assets/");
+        return staticResourceMatcher.matches(request.getRequestURI());
     }
 }
@@ -1,6 +1,8 @@
 package com.github.filter;
 
-import com.github.wrapper.CacheRequestBodyWrapper;
+import com.github.wrapper.BodyBufferPool;
+import com.github.wrapper.TeeRequestBodyWrapper;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -14,16 +16,31 @@ import java.io.IOException;
 /**
  *
  * 一个缓存请求体的过滤器，用于缓存请求体的内容。
+ * 请求体以流的形式交给后续处理，只在读取时捕获前 N 个字节（{@link TeeRequestBodyWrapper}），请求结束后归还缓冲区。
+ * 只包装 JSON 请求：form 表单的请求体由 Tomcat 自己解析为请求参数（ApiAccessLogFilter 调用 getParamMap 时就已读取），
+ * 不经过包装器的输入流，表单字段随请求参数一起记录在访问日志的 queryString 中。
  *
  * @author wangwenpeng
  * @date 2025/05/24
  */
 public class CacheRequestBodyFilter extends OncePerRequestFilter {
 
+    private final BodyBufferPool bufferPool;
+
+    public CacheRequestBodyFilter(BodyBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws IOException, ServletException {
-        filterChain.doFilter(new CacheRequestBodyWrapper(request), response);
+        TeeRequestBodyWrapper wrapper = new TeeRequestBodyWrapper(request, bufferPool);
+        try {
+            filterChain.doFilter(wrapper, response);
+        } finally {
+            // ApiAccessLogFilter 在内层，此时访问日志已经取走请求体
+            wrapper.release();
+        }
     }
 
     @Override
@@ -32,9 +49,12 @@ public class CacheRequestBodyFilter extends OncePerRequestFilter {
         if (contentType == null) {
             return true; // 没有 Content-Type，比如 GET 请求
         }
-        // 只缓存 JSON 和 form 表单请求
-        return !(MediaType.APPLICATION_JSON_VALUE.equals(contentType)
-                || MediaType.APPLICATION_FORM_URLENCODED_VALUE.equals(contentType));
+        // 只缓存 JSON 请求，按媒体类型比较，带 charset 等参数的 Content-Type 同样匹配
+        try {
+            return !MediaType.APPLICATION_JSON.includes(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return true;
+        }
     }
 
 }
@@ -0,0 +1,93 @@
+package com.github.filter;
+
+import java.util.Collection;
+
+/**
+ * 静态资源路径判断：前缀编译成一棵正向的字典树，后缀编译成一棵反向（从末尾向前）的字典树，
+ * 每次判断最多各扫描一遍 URI 的开头和末尾，与规则数量无关，也不产生临时对象
+ */
+public class StaticResourceMatcher {
+
+    private final Node prefixes = new Node();
+    private final Node suffixes = new Node();
+
+    /**
+     * @param prefixes 路径前缀，如 /js/
+     * @param suffixes 路径后缀，如 .js
+     */
+    public StaticResourceMatcher(Collection<String> prefixes, Collection<String> suffixes) {
+        for (String prefix : prefixes) {
+            Node node = this.prefixes;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.childOrCreate(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+        for (String suffix : suffixes) {
+            Node node = this.suffixes;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                node = node.childOrCreate(suffix.charAt(i));
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * @param uri 请求 URI
+     * @return 是否以任意一个前缀开头或以任意一个后缀结尾
+     */
+    public boolean matches(String uri) {
+        if (uri == null) {
+            return false;
+        }
+        Node node = suffixes;
+        for (int i = uri.length() - 1; i >= 0 && (node = node.child(uri.charAt(i))) != null; i--) {
+            if (node.terminal) {
+                return true;
+            }
+        }
+        node = prefixes;
+        for (int i = 0; i < uri.length() && (node = node.child(uri.charAt(i))) != null; i++) {
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 字典树节点，子节点很少（扩展名和目录名的字符），用两个数组线性查找
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        Node child(char c) {
+            char[] keys = this.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(char c) {
+            Node child = child(c);
+            if (child == null) {
+                child = new Node();
+                int n = keys.length;
+                char[] newKeys = new char[n + 1];
+                Node[] newChildren = new Node[n + 1];
+                System.arraycopy(keys, 0, newKeys, 0, n);
+                System.arraycopy(children, 0, newChildren, 0, n);
+                newKeys[n] = c;
+                newChildren[n] = child;
+                keys = newKeys;
+                children = newChildren;
+            }
+            return child;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.github.interceptor;
 
+import com.github.accesslog.AccessLogPolicy;
+import com.github.accesslog.AccessLogPolicyRegistry;
+import com.github.wrapper.TeeRequestBodyWrapper;
+import com.github.wrapper.TeeResponseBodyWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.WebUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -12,18 +17,55 @@ public class ApiAccessLogInterceptor implements HandlerInterceptor {
 
     public static final String ATTRIBUTE_HANDLER_METHOD = "HANDLER_METHOD";
 
+    public static final String ATTRIBUTE_ACCESS_LOG_POLICY = "ACCESS_LOG_POLICY";
+
+    public static final String ATTRIBUTE_ACCESS_LOG_SAMPLED = "ACCESS_LOG_SAMPLED";
+
+    private final AccessLogPolicyRegistry policyRegistry;
+
+    public ApiAccessLogInterceptor(AccessLogPolicyRegistry policyRegistry) {
+        this.policyRegistry = policyRegistry;
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        // 记录 HandlerMethod，提供给 Filter 使用
+        // 记录 HandlerMethod 和启动时解析好的日志策略，提供给 Filter 使用
         HandlerMethod handlerMethod = handler instanceof HandlerMethod ? (HandlerMethod) handler : null;
         if (handlerMethod != null) {
             request.setAttribute(ATTRIBUTE_HANDLER_METHOD, handlerMethod);
+            AccessLogPolicy policy = policyRegistry.policy(handlerMethod);
+            request.setAttribute(ATTRIBUTE_ACCESS_LOG_POLICY, policy);
+
+            if (!policy.enabled()) {
+                disableCapture(request, response);
+                return true;
+            }
+
+            // 头部采样，结果交给 Filter；没有被采样的请求不捕获，即使被尾部采样保留也只记录不带请求体、响应体的日志
+            boolean sampled = policy.sample();
+            request.setAttribute(ATTRIBUTE_ACCESS_LOG_SAMPLED, sampled);
+            if (!sampled) {
+                disableCapture(request, response);
+            }
         }
 
         return true;
     }
 
+    /**
+     * 不捕获请求体和响应体，此时 Handler 还没有读取请求体、写出响应
+     */
+    private void disableCapture(HttpServletRequest request, HttpServletResponse response) {
+        TeeRequestBodyWrapper requestWrapper = WebUtils.getNativeRequest(request, TeeRequestBodyWrapper.class);
+        if (requestWrapper != null) {
+            requestWrapper.disableCapture();
+        }
+        TeeResponseBodyWrapper responseWrapper = WebUtils.getNativeResponse(response, TeeResponseBodyWrapper.class);
+        if (responseWrapper != null) {
+            responseWrapper.disableCapture();
+        }
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
     }
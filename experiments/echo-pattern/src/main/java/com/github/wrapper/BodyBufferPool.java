@@ -0,0 +1,51 @@
+package com.github.wrapper;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求体捕获缓冲区的对象池，每个缓冲区的大小等于最多捕获的字节数
+ * 池空时临时创建，归还时池已满则直接丢弃，交给 GC
+ */
+public class BodyBufferPool {
+
+    private final int bufferSize;
+    private final ArrayBlockingQueue<byte[]> pool;
+
+    private final LongAdder created = new LongAdder();
+
+    /**
+     * @param bufferSize 每个缓冲区的字节数，即最多捕获的请求体长度
+     * @param poolSize   最多缓存的缓冲区数量
+     */
+    public BodyBufferPool(int bufferSize, int poolSize) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public byte[] acquire() {
+        byte[] buffer = pool.poll();
+        if (buffer == null) {
+            created.increment();
+            buffer = new byte[bufferSize];
+        }
+        return buffer;
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            pool.offer(buffer);
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return 累计新建的缓冲区数量，稳定后不再增长说明池的大小足够
+     */
+    public long created() {
+        return created.sum();
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.wrapper;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * 旁路捕获请求体的包装器：请求体仍然以流的形式交给后续的 Handler，读取的同时把前 maxCapture 个字节复制到池化的缓冲区，供访问日志使用。
+ * 不预先读取请求体，大文件上传不会整体驻留在内存中；缓冲区在第一次读到数据时才从池中借出，
+ * 接口关闭了访问日志（{@code @ApiAccessLog(enable = false)}）或请求没有被头部采样时由拦截器调用 {@link #disableCapture()}，整个请求都不会捕获。
+ * 请求结束后必须调用 {@link #release()} 归还缓冲区。
+ */
+public class TeeRequestBodyWrapper extends HttpServletRequestWrapper {
+
+    private final BodyBufferPool bufferPool;
+
+    private boolean captureEnabled = true;
+
+    private boolean released;
+
+    /**
+     * 捕获的前 N 个字节，第一次读到数据时才借出
+     */
+    private byte[] buffer;
+
+    /**
+     * 缓冲区中的有效字节数
+     */
+    private int captured;
+
+    /**
+     * Handler 实际读取的总字节数，超过 captured 说明日志中的请求体被截断
+     */
+    private long total;
+
+    private ServletInputStream inputStream;
+
+    public TeeRequestBodyWrapper(HttpServletRequest request, BodyBufferPool bufferPool) {
+        super(request);
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(this.getInputStream(), charset()));
+    }
+
+    /**
+     * 重写方法，读取原始请求流的同时捕获前 maxCapture 个字节
+     *
+     * @return {@link ServletInputStream }
+     */
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = new TeeInputStream(super.getInputStream());
+        }
+        return inputStream;
+    }
+
+    /**
+     * 不再捕获请求体，已借出的缓冲区立即归还
+     */
+    public void disableCapture() {
+        captureEnabled = false;
+        release();
+    }
+
+    /**
+     * @return 捕获到的请求体，超过 maxCapture 时截断；关闭捕获时返回 null，Handler 没有读取请求体时返回空字符串
+     */
+    public String capturedBody() {
+        if (!captureEnabled) {
+            return null;
+        }
+        if (buffer == null) {
+            return "";
+        }
+        String body = new String(buffer, 0, captured, charset());
+        if (total > captured) {
+            return body + "...(共 " + total + " 字节，已截断)";
+        }
+        return body;
+    }
+
+    /**
+     * 归还缓冲区，之后不再捕获
+     */
+    public void release() {
+        released = true;
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+            captured = 0;
+        }
+    }
+
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+    }
+
+    private void capture(int b) {
+        total++;
+        if (!captureEnabled || !ensureBuffer() || captured >= buffer.length) {
+            return;
+        }
+        buffer[captured++] = (byte) b;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        total += len;
+        if (!captureEnabled || !ensureBuffer() || captured >= buffer.length) {
+            return;
+        }
+        int n = Math.min(len, buffer.length - captured);
+        System.arraycopy(b, off, buffer, captured, n);
+        captured += n;
+    }
+
+    private boolean ensureBuffer() {
+        if (released) {
+            return false; // 请求结束后仍有读取（如异步处理），不再借出
+        }
+        if (buffer == null) {
+            buffer = bufferPool.acquire();
+        }
+        return true;
+    }
+
+    /**
+     * 把读取委托给原始请求流，读到的数据同时交给 capture
+     */
+    private class TeeInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+
+        TeeInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                capture(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n > 0) {
+                capture(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.wrapper;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * 旁路捕获响应体的包装器，与 {@link TeeRequestBodyWrapper} 对称：Handler 写出的数据直接交给原始响应，
+ * 同时把前 maxCapture 个字节复制到池化的缓冲区，供访问日志使用。
+ * 不缓存整个响应体（不同于 ContentCachingResponseWrapper），响应照常分块写出；缓冲区在第一次写出数据时才从池中借出，
+ * 接口关闭了访问日志或请求没有被头部采样时由拦截器调用 {@link #disableCapture()}。请求结束后必须调用 {@link #release()} 归还缓冲区。
+ */
+public class TeeResponseBodyWrapper extends HttpServletResponseWrapper {
+
+    private final BodyBufferPool bufferPool;
+
+    private boolean captureEnabled = true;
+
+    private boolean released;
+
+    /**
+     * 捕获的前 N 个字节，第一次写出数据时才借出
+     */
+    private byte[] buffer;
+
+    /**
+     * 缓冲区中的有效字节数
+     */
+    private int captured;
+
+    /**
+     * Handler 实际写出的总字节数，超过 captured 说明日志中的响应体被截断
+     */
+    private long total;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    public TeeResponseBodyWrapper(HttpServletResponse response, BodyBufferPool bufferPool) {
+        super(response);
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * 重写方法，写出到原始响应流的同时捕获前 maxCapture 个字节
+     *
+     * @return {@link ServletOutputStream }
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new TeeOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    /**
+     * 字符输出也经过 {@link TeeOutputStream}，每次写出后立即编码，捕获的内容与实际响应一致
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            writer = new TeePrintWriter(getOutputStream(), encoding != null ? encoding : StandardCharsets.ISO_8859_1.name());
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * 不再捕获响应体，已借出的缓冲区立即归还
+     */
+    public void disableCapture() {
+        captureEnabled = false;
+        release();
+    }
+
+    /**
+     * @return 捕获到的响应体，超过 maxCapture 时截断；关闭捕获时返回 null，没有响应体时返回空字符串
+     */
+    public String capturedBody() {
+        if (!captureEnabled) {
+            return null;
+        }
+        if (buffer == null) {
+            return "";
+        }
+        String body = new String(buffer, 0, captured, charset());
+        if (total > captured) {
+            return body + "...(共 " + total + " 字节，已截断)";
+        }
+        return body;
+    }
+
+    /**
+     * 归还缓冲区，之后不再捕获
+     */
+    public void release() {
+        released = true;
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+            captured = 0;
+        }
+    }
+
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        try {
+            return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8; // 只影响日志中的显示
+        }
+    }
+
+    private void capture(int b) {
+        total++;
+        if (!captureEnabled || !ensureBuffer() || captured >= buffer.length) {
+            return;
+        }
+        buffer[captured++] = (byte) b;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        total += len;
+        if (!captureEnabled || !ensureBuffer() || captured >= buffer.length) {
+            return;
+        }
+        int n = Math.min(len, buffer.length - captured);
+        System.arraycopy(b, off, buffer, captured, n);
+        captured += n;
+    }
+
+    private boolean ensureBuffer() {
+        if (released) {
+            return false; // 请求结束后仍有写出（如异步处理），不再借出
+        }
+        if (buffer == null) {
+            buffer = bufferPool.acquire();
+        }
+        return true;
+    }
+
+    /**
+     * 把写出委托给原始响应流，写出的数据同时交给 capture
+     */
+    private class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        TeeOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    /**
+     * OutputStreamWriter 自带缓冲，容器只会关闭原始响应流，不会刷新这里的 Writer，所以每次写出后立即把编码好的字节交给 TeeOutputStream。
+     * 这一步不能刷新原始响应流（会提前提交响应），只有 Handler 显式调用 flush 时才刷新。
+     */
+    private static class TeePrintWriter extends PrintWriter {
+
+        private final ServletOutputStream stream;
+
+        TeePrintWriter(ServletOutputStream stream, String encoding) throws IOException {
+            super(new OutputStreamWriter(new NonFlushingOutputStream(stream), encoding));
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(int c) {
+            super.write(c);
+            super.flush();
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            super.write(buf, off, len);
+            super.flush();
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            super.write(s, off, len);
+            super.flush();
+        }
+
+        @Override
+        public void println() {
+            super.println(); // 换行符直接写入底层 Writer，不经过上面的 write
+            super.flush();
+        }
+
+        @Override
+        public void flush() {
+            super.flush();
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                setError();
+            }
+        }
+    }
+
+    /**
+     * 忽略 flush，只转发写出和关闭
+     */
+    private static class NonFlushingOutputStream extends FilterOutputStream {
+
+        NonFlushingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}